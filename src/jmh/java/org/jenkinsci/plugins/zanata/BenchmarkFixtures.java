@@ -0,0 +1,108 @@
+/*
+ * Copyright 2017, Red Hat, Inc. and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jenkinsci.plugins.zanata;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+
+/**
+ * Builds synthetic repos on local file system for benchmarks so that they
+ * don't need network or a real Zanata server.
+ */
+public final class BenchmarkFixtures {
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * Writes a zanata.xml with locales listed so that applying it won't
+     * fetch locales from server.
+     */
+    public static File writeProjectConfig(Path dir, String project,
+            List<String> locales) throws IOException {
+        StringBuilder xml = new StringBuilder()
+                .append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n")
+                .append("<config xmlns=\"http://zanata.org/namespace/config/\">\n")
+                .append("  <url>http://localhost:8080/zanata/</url>\n")
+                .append("  <project>").append(project).append("</project>\n")
+                .append("  <project-version>master</project-version>\n")
+                .append("  <project-type>properties</project-type>\n")
+                .append("  <src-dir>src</src-dir>\n")
+                .append("  <trans-dir>trans</trans-dir>\n")
+                .append("  <locales>\n");
+        for (String locale : locales) {
+            xml.append("    <locale>").append(locale).append("</locale>\n");
+        }
+        xml.append("  </locales>\n</config>\n");
+        Files.createDirectories(dir);
+        Path config = dir.resolve("zanata.xml");
+        write(config, xml.toString());
+        return config.toFile();
+    }
+
+    /**
+     * Writes a source properties file and its translations for each locale.
+     */
+    public static void writeDocuments(Path moduleDir, int documents,
+            List<String> locales) throws IOException {
+        for (int i = 0; i < documents; i++) {
+            write(moduleDir.resolve("src/messages" + i + ".properties"),
+                    "greeting=hello " + i + "\n");
+            for (String locale : locales) {
+                write(moduleDir.resolve(
+                        "trans/messages" + i + "_" + locale + ".properties"),
+                        "greeting=hello " + i + " in " + locale + "\n");
+            }
+        }
+    }
+
+    public static void write(Path file, String content) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static void deleteRecursively(Path dir) throws IOException {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        Files.walkFileTree(dir, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file,
+                    BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path d, IOException e)
+                    throws IOException {
+                Files.delete(d);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
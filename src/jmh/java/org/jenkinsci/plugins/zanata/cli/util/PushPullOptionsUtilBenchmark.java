@@ -0,0 +1,103 @@
+/*
+ * Copyright 2017, Red Hat, Inc. and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jenkinsci.plugins.zanata.cli.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.jenkinsci.plugins.zanata.BenchmarkFixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.zanata.client.commands.push.PushOptionsImpl;
+
+/**
+ * Finding project configs in a repo with many modules, each with documents
+ * and translations, plus the kind of big folders (.git, node_modules) real
+ * repos have. Also applying a project config which lists its locales (i.e.
+ * no call to Zanata server).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PushPullOptionsUtilBenchmark {
+    private static final List<String> LOCALES =
+            Arrays.asList("de", "es", "fr", "ja", "zh-CN", "zh-TW");
+
+    @Param({ "10", "100" })
+    public int modules;
+
+    @Param({ "20" })
+    public int documentsPerModule;
+
+    private Path repoBase;
+    private File projectConfig;
+
+    @Setup
+    public void setUp() throws IOException {
+        repoBase = Files.createTempDirectory("zanata-benchmark");
+        for (int i = 0; i < modules; i++) {
+            Path module = repoBase.resolve("modules/module" + i);
+            File config = BenchmarkFixtures
+                    .writeProjectConfig(module, "project" + i, LOCALES);
+            if (projectConfig == null) {
+                projectConfig = config;
+            }
+            BenchmarkFixtures.writeDocuments(module, documentsPerModule,
+                    LOCALES);
+        }
+        for (int i = 0; i < modules * 10; i++) {
+            BenchmarkFixtures.write(repoBase.resolve(
+                    ".git/objects/" + (i % 256) + "/object" + i), "blob");
+            BenchmarkFixtures.write(repoBase.resolve(
+                    "node_modules/dep" + (i % 50) + "/lib/file" + i + ".js"),
+                    "module.exports = {};");
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        BenchmarkFixtures.deleteRecursively(repoBase);
+    }
+
+    @Benchmark
+    public Set<File> findProjectConfigs() {
+        return PushPullOptionsUtil.findProjectConfigs(repoBase.toFile());
+    }
+
+    @Benchmark
+    public PushOptionsImpl applyProjectConfig() {
+        return PushPullOptionsUtil.applyProjectConfig(new PushOptionsImpl(),
+                projectConfig);
+    }
+}
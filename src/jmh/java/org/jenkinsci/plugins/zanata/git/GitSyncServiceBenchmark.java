@@ -0,0 +1,123 @@
+/*
+ * Copyright 2017, Red Hat, Inc. and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jenkinsci.plugins.zanata.git;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.output.NullOutputStream;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.jenkinsci.plugins.gitclient.Git;
+import org.jenkinsci.plugins.zanata.BenchmarkFixtures;
+import org.jenkinsci.plugins.zanata.SyncJobDetail;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import hudson.EnvVars;
+import hudson.util.StreamTaskListener;
+
+/**
+ * Committing pulled translations in a repo with thousands of translation
+ * files. Every invocation starts from a repo where some of the translations
+ * have changed, the way it is after a pull.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+public class GitSyncServiceBenchmark {
+    private static final List<String> LOCALES =
+            Arrays.asList("de", "es", "fr", "ja", "zh-CN", "zh-TW");
+
+    /**
+     * documents per module, there are 10 modules each with 6 locales
+     */
+    @Param({ "50" })
+    public int documents;
+
+    @Param({ "10", "500" })
+    public int changedFiles;
+
+    private Path repoBase;
+    private GitSyncService syncService;
+    private int round;
+
+    @Setup
+    public void setUp() throws IOException, GitAPIException {
+        repoBase = Files.createTempDirectory("zanata-benchmark-git");
+        for (int i = 0; i < 10; i++) {
+            Path module = repoBase.resolve("module" + i);
+            BenchmarkFixtures.writeProjectConfig(module, "project" + i,
+                    LOCALES);
+            BenchmarkFixtures.writeDocuments(module, documents, LOCALES);
+        }
+        try (org.eclipse.jgit.api.Git jgit = org.eclipse.jgit.api.Git.init()
+                .setDirectory(repoBase.toFile()).call()) {
+            jgit.add().addFilepattern(".").call();
+            jgit.commit().setMessage("initial commit")
+                    .setAuthor("bench", "bench@example.com")
+                    .setCommitter("bench", "bench@example.com").call();
+        }
+        syncService = new GitSyncService(
+                SyncJobDetail.Builder.builder().setZanataUsername("bench")
+                        .build(),
+                Git.with(new StreamTaskListener(new NullOutputStream()),
+                        new EnvVars()));
+    }
+
+    @Setup(Level.Invocation)
+    public void changeTranslations() throws IOException {
+        round++;
+        for (int i = 0; i < changedFiles; i++) {
+            int module = i % 10;
+            int document = (i / 10) % documents;
+            String locale = LOCALES.get((i / (10 * documents)) % LOCALES.size());
+            BenchmarkFixtures.write(repoBase.resolve("module" + module
+                    + "/trans/messages" + document + "_" + locale
+                    + ".properties"), "greeting=round " + round + "\n");
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        BenchmarkFixtures.deleteRecursively(repoBase);
+    }
+
+    @Benchmark
+    public boolean syncTranslationToRepo() {
+        return syncService.syncTranslationToRepo(repoBase);
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2017, Red Hat, Inc. and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jenkinsci.plugins.zanata.webhook;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.apache.commons.codec.binary.Base64;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.google.common.base.Strings;
+
+/**
+ * Signing a webhook the way Zanata does: hmac of the Base64 hmac of payload
+ * plus request URI. {@link #newMacPerCall} sets up a Mac for every hmac (how
+ * HmacUtil used to do it), the others clone the prototype HmacUtil keeps per
+ * secret.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class HmacUtilBenchmark {
+    private static final String URI = "/jenkins/zanata-webhook/?job=l10n";
+
+    @Param({ "200", "4000" })
+    public int payloadSize;
+
+    private String secret;
+    private String payload;
+    private byte[] secretBytes;
+    private byte[] payloadBytes;
+
+    @Setup
+    public void setUp() {
+        secret = "s3cr3t-webhook-key";
+        secretBytes = secret.getBytes(StandardCharsets.UTF_8);
+        payload = "{\"type\":\"DocumentMilestoneEvent\",\"text\":\""
+                + Strings.repeat("x", payloadSize) + "\"}";
+        payloadBytes = (payload + URI).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public String newMacPerCall() throws GeneralSecurityException {
+        String inner = Base64.encodeBase64String(
+                newMac(secretBytes).doFinal(payloadBytes));
+        return Base64.encodeBase64String(newMac(secretBytes)
+                .doFinal(inner.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Benchmark
+    public String clonedMac() {
+        return HmacUtil.hmacSha1(secret, HmacUtil.hmacSha1(secret, payload + URI));
+    }
+
+    @Benchmark
+    public String clonedMacWithRawBytes() {
+        String inner = Base64.encodeBase64String(
+                HmacUtil.rawHmacSha1(secretBytes, payloadBytes));
+        return HmacUtil.hmacSha1(secretBytes,
+                inner.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Mac newMac(byte[] key) throws GeneralSecurityException {
+        Mac mac = Mac.getInstance("HmacSHA1");
+        mac.init(new SecretKeySpec(key, "HmacSHA1"));
+        return mac;
+    }
+}
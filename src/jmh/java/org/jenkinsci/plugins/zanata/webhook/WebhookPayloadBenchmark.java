@@ -0,0 +1,102 @@
+/*
+ * Copyright 2017, Red Hat, Inc. and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jenkinsci.plugins.zanata.webhook;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.IOUtils;
+import org.jenkinsci.plugins.zanata.cli.SyncScope;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.google.common.base.Strings;
+
+import net.sf.json.JSONObject;
+
+/**
+ * What the webhook endpoint does with a request body: read it, check its
+ * signature, parse it and work out what it asks for.
+ * {@link #readAsStringAndParse} is how the endpoint used to do it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class WebhookPayloadBenchmark {
+    private static final String URI = "/jenkins/zanata-webhook/?job=l10n";
+    private static final String SECRET = "s3cr3t-webhook-key";
+
+    @Param({ "200", "4000" })
+    public int payloadSize;
+
+    private byte[] body;
+    private String signature;
+
+    @Setup
+    public void setUp() {
+        String payload = "{\"type\":\"DocumentMilestoneEvent\","
+                + "\"project\":\"about-fedora\",\"version\":\"master\","
+                + "\"locale\":\"zh-CN\",\"milestone\":\"100% Translated\","
+                + "\"docId\":\"" + Strings.repeat("x", payloadSize) + "\"}";
+        body = payload.getBytes(StandardCharsets.UTF_8);
+        signature = HmacUtil.hmacSha1(SECRET,
+                HmacUtil.hmacSha1(SECRET, payload + URI));
+    }
+
+    @Benchmark
+    public void readAsStringAndParse(Blackhole blackhole) throws IOException {
+        String payload = IOUtils.toString(new ByteArrayInputStream(body),
+                StandardCharsets.UTF_8);
+        JSONObject json = JSONObject.fromObject(payload);
+        String expected = HmacUtil.hmacSha1(SECRET,
+                HmacUtil.hmacSha1(SECRET, json.toString() + URI));
+        blackhole.consume(expected.equals(signature));
+        blackhole.consume(Processor.describe(json));
+        blackhole.consume(Processor.scopeOf(json));
+    }
+
+    @Benchmark
+    public void readVerifyAndParse(Blackhole blackhole) throws IOException {
+        WebhookPayload payload = WebhookPayload.read(
+                new ByteArrayInputStream(body), WebhookPayload.MAX_BYTES,
+                SECRET, URI);
+        blackhole.consume(payload.signatureMatches(signature));
+        JSONObject json = payload.getJson();
+        blackhole.consume(Processor.describe(json));
+        blackhole.consume(Processor.scopeOf(json));
+    }
+
+    @Benchmark
+    public SyncScope mergeScopes() {
+        return SyncScope.of("about-fedora", "master", "zh-CN")
+                .merge(SyncScope.of("about-fedora", "master", "ja"))
+                .merge(SyncScope.of("about-fedora", "f27", null));
+    }
+}
@@ -200,7 +200,7 @@ public class ZanataCliBuilder extends Builder implements SimpleBuildStep {
 
     private boolean runShellCommandInBuild(String command,
             TaskListener listener, Launcher launcher, Run<?, ?> builder,
-            FilePath workspace, EnvVars envs){
+            FilePath workspace, EnvVars envs) throws InterruptedException {
 
          try {
 
@@ -230,10 +230,6 @@ public class ZanataCliBuilder extends Builder implements SimpleBuildStep {
              listener.getLogger().println("Can't run command:" + command);
              e.printStackTrace();
              return false;
-         } catch (InterruptedException e) {
-             listener.getLogger().println("Can't run command - InterruptedException.");
-             e.printStackTrace();
-             return false;
          }
 
     }
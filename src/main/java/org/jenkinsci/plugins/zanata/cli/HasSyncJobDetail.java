@@ -32,7 +32,9 @@ import com.google.common.base.Strings;
  * @author Patrick Huang <a href="mailto:pahuang@redhat.com">pahuang@redhat.com</a>
  */
 public interface HasSyncJobDetail extends Serializable {
-
+    String PULL_CACHE_NONE = "none";
+    String PULL_CACHE_WORKSPACE = "workspace";
+    String PULL_CACHE_NODE = "node";
 
     String getZanataURL();
 
@@ -48,6 +50,42 @@ public interface HasSyncJobDetail extends Serializable {
 
     String getZanataCredentialsId();
 
+    /**
+     * @return how many project configs can be pushed or pulled at the same
+     * time. Anything less than 2 means one at a time.
+     */
+    int getConcurrency();
+
+    /**
+     * @return whether to skip pushing project configs whose documents have
+     * not changed since last successful push
+     */
+    boolean isIncrementalPush();
+
+    /**
+     * @return where to keep the pull cache: {@value #PULL_CACHE_WORKSPACE},
+     * {@value #PULL_CACHE_NODE} or {@value #PULL_CACHE_NONE}. null means
+     * {@value #PULL_CACHE_NONE}.
+     */
+    String getPullCache();
+
+    /**
+     * @return whether to push the translation commit to remote
+     */
+    boolean isPushCommit();
+
+    /**
+     * @return remote branch to push translation commit to. Blank means the
+     * branch that was checked out.
+     */
+    String getPushCommitBranch();
+
+    /**
+     * @return id of Jenkins credentials to push (and fetch) the translation
+     * commit with. Blank means none are given (e.g. SSH keys on the node).
+     */
+    String getPushCommitCredentialsId();
+
     default String describeSyncJob() {
         return MoreObjects.toStringHelper(this)
                 .add("zanataURL", getZanataURL())
@@ -57,6 +95,12 @@ public interface HasSyncJobDetail extends Serializable {
                 .add("syncOption", getSyncOption())
                 .add("zanataLocaleIds", getZanataLocaleIds())
                 .add("zanataProjectConfigs", getZanataProjectConfigs())
+                .add("concurrency", getConcurrency())
+                .add("incrementalPush", isIncrementalPush())
+                .add("pullCache", getPullCache())
+                .add("pushCommit", isPushCommit())
+                .add("pushCommitBranch", getPushCommitBranch())
+                .add("pushCommitCredentialsId", getPushCommitCredentialsId())
                 .toString();
     }
 
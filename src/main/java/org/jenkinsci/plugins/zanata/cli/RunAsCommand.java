@@ -1,9 +1,8 @@
 package org.jenkinsci.plugins.zanata.cli;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.Map;
-import java.util.logging.Level;
+import java.util.TreeMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -12,27 +11,21 @@ import hudson.EnvVars;
 import hudson.FilePath;
 import hudson.Launcher;
 import hudson.Proc;
-import hudson.Util;
-import hudson.model.AbstractProject;
-import hudson.model.Descriptor;
-import hudson.model.Node;
-import hudson.model.Run;
-import hudson.model.StreamBuildListener;
 import hudson.model.TaskListener;
-import hudson.remoting.ChannelClosedException;
-import hudson.tasks.Messages;
-import hudson.tasks.Publisher;
-import hudson.tasks.Shell;
 import hudson.util.ArgumentListBuilder;
-import hudson.util.DescribableList;
 
 /**
- * TODO not used. But we can use it to invoke zanata cli programmatically.
+ * Runs a command (e.g. a zanata-cli script) with the given environment in
+ * the workspace through the build's launcher, so it runs on the node of the
+ * build. Used by {@link org.jenkinsci.plugins.zanata.ZanataCliBuilder}.
+ *
  * @author Patrick Huang <a href="mailto:pahuang@redhat.com">pahuang@redhat.com</a>
  */
 public class RunAsCommand {
     private static final Logger log =
             LoggerFactory.getLogger(RunAsCommand.class);
+    // environment variables never to be logged as they are
+    private static final String API_KEY_ENV = "ZANATA_APIKEY";
     private final EnvVars envs;
 
     public RunAsCommand(EnvVars envs) {
@@ -40,46 +33,41 @@ public class RunAsCommand {
     }
 
 
+    /**
+     * Runs the command and pipes its output straight to the listener.
+     *
+     * @return true if the command exits with 0
+     * @throws InterruptedException
+     *         if the build is aborted. The child process is killed.
+     */
     public boolean run(FilePath workspace,
             TaskListener listener, Launcher launcher, ArgumentListBuilder args)
             throws InterruptedException, IOException {
+        log.debug("Environment variables: {}", redacted(envs).entrySet());
+        log.debug("Command line: {}", args.toStringWithQuote());
+        listener.getLogger().println("Command to run:" + args.toStringWithQuote());
 
-        try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
-
-
-            log.debug("Environment variables: {}", envs.entrySet());
-            log.debug("Command line: {}", args.toStringWithQuote());
-            listener.getLogger().println("Env:" + envs.entrySet());
-            listener.getLogger().println("Command to run:" + args.toStringWithQuote());
-
-            StreamBuildListener streamBuildListener = new StreamBuildListener(baos);
-
-            final Proc child = launcher
-                    .launch()
-                    .cmds(args).envs(envs).stdout(streamBuildListener)
-                    .pwd(workspace)
-                    .start();
-
-            try {
-                while (child.isAlive()) {
-                    listener.getLogger().print(baos.toString("UTF-8"));
-                    baos.reset();
-
-                    Thread.sleep(5);
-                }
-            } catch (InterruptedException intEx) {
-                child.kill();
-                listener.getLogger().println("Aborted by User. Terminated");
-                throw new InterruptedException("User Aborted");
-            }
-
-            baos.flush();
-            listener.getLogger().print(baos.toString("UTF-8"));
-            listener.getLogger().flush();
+        // output is streamed to the listener as it comes (remotely if the
+        // build runs on an agent) so nothing is buffered here
+        final Proc child = launcher
+                .launch()
+                .cmds(args).envs(envs).stdout(listener)
+                .pwd(workspace)
+                .start();
+        try {
             return child.join() == 0;
-        } catch (Exception e) {
-            log.error("failed in error", e);
-            throw new RuntimeException(e);
+        } catch (InterruptedException intEx) {
+            child.kill();
+            listener.getLogger().println("Aborted by User. Terminated");
+            throw intEx;
+        } finally {
+            listener.getLogger().flush();
         }
     }
+
+    private static Map<String, String> redacted(EnvVars envs) {
+        Map<String, String> copy = new TreeMap<>(envs);
+        copy.computeIfPresent(API_KEY_ENV, (name, value) -> "****");
+        return copy;
+    }
 }
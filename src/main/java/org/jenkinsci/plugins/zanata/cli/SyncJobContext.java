@@ -0,0 +1,143 @@
+/*
+ * Copyright 2017, Red Hat, Inc. and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jenkinsci.plugins.zanata.cli;
+
+/**
+ * Snapshot of a sync job config together with the credentials resolved for
+ * one execution of it.
+ * <p>
+ * The job config (e.g. a build step) is shared by every build of the job and
+ * every parallel branch using it, so anything resolved per execution must
+ * not be written back to it. Each execution creates its own context and
+ * hands that to the sync services instead.
+ */
+public final class SyncJobContext implements HasSyncJobDetail {
+    private static final long serialVersionUID = 1L;
+
+    private final String zanataURL;
+    private final String syncOption;
+    private final String zanataProjectConfigs;
+    private final String zanataLocaleIds;
+    private final String zanataUsername;
+    private final String zanataSecret;
+    private final String zanataCredentialsId;
+    private final int concurrency;
+    private final boolean incrementalPush;
+    private final String pullCache;
+    private final boolean pushCommit;
+    private final String pushCommitBranch;
+    private final String pushCommitCredentialsId;
+
+    /**
+     * @param config
+     *         job config to take a copy of
+     * @param zanataUsername
+     *         username resolved from the job's credentials
+     * @param zanataSecret
+     *         API key resolved from the job's credentials
+     */
+    public SyncJobContext(HasSyncJobDetail config, String zanataUsername,
+            String zanataSecret) {
+        this.zanataURL = config.getZanataURL();
+        this.syncOption = config.getSyncOption();
+        this.zanataProjectConfigs = config.getZanataProjectConfigs();
+        this.zanataLocaleIds = config.getZanataLocaleIds();
+        this.zanataUsername = zanataUsername;
+        this.zanataSecret = zanataSecret;
+        this.zanataCredentialsId = config.getZanataCredentialsId();
+        this.concurrency = config.getConcurrency();
+        this.incrementalPush = config.isIncrementalPush();
+        this.pullCache = config.getPullCache();
+        this.pushCommit = config.isPushCommit();
+        this.pushCommitBranch = config.getPushCommitBranch();
+        this.pushCommitCredentialsId = config.getPushCommitCredentialsId();
+    }
+
+    @Override
+    public String getZanataURL() {
+        return zanataURL;
+    }
+
+    @Override
+    public String getSyncOption() {
+        return syncOption;
+    }
+
+    @Override
+    public String getZanataProjectConfigs() {
+        return zanataProjectConfigs;
+    }
+
+    @Override
+    public String getZanataLocaleIds() {
+        return zanataLocaleIds;
+    }
+
+    @Override
+    public String getZanataUsername() {
+        return zanataUsername;
+    }
+
+    @Override
+    public String getZanataSecret() {
+        return zanataSecret;
+    }
+
+    @Override
+    public String getZanataCredentialsId() {
+        return zanataCredentialsId;
+    }
+
+    @Override
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    @Override
+    public boolean isIncrementalPush() {
+        return incrementalPush;
+    }
+
+    @Override
+    public String getPullCache() {
+        return pullCache;
+    }
+
+    @Override
+    public boolean isPushCommit() {
+        return pushCommit;
+    }
+
+    @Override
+    public String getPushCommitBranch() {
+        return pushCommitBranch;
+    }
+
+    @Override
+    public String getPushCommitCredentialsId() {
+        return pushCommitCredentialsId;
+    }
+
+    @Override
+    public String toString() {
+        return describeSyncJob();
+    }
+}
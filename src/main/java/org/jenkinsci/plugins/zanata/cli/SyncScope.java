@@ -0,0 +1,179 @@
+/*
+ * Copyright 2017, Red Hat, Inc. and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jenkinsci.plugins.zanata.cli;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import javax.annotation.CheckForNull;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Strings;
+
+/**
+ * What a sync is restricted to, e.g. the project, version and locale a
+ * Zanata webhook is about. A null set means no restriction in that
+ * dimension.
+ */
+public final class SyncScope implements Serializable {
+    private static final long serialVersionUID = 1L;
+    public static final SyncScope EVERYTHING = new SyncScope(null, null);
+
+    // project -> versions. Empty versions means all versions of the project
+    private final Map<String, Set<String>> versionsByProject;
+    private final Set<String> locales;
+
+    private SyncScope(Map<String, Set<String>> versionsByProject,
+            Set<String> locales) {
+        this.versionsByProject = versionsByProject == null ? null :
+                Collections.unmodifiableMap(versionsByProject);
+        this.locales = locales == null ? null :
+                Collections.unmodifiableSet(locales);
+    }
+
+    /**
+     * @param project
+     *         project slug or null for all projects
+     * @param version
+     *         version slug or null for all versions
+     * @param locale
+     *         locale id or null for all locales
+     */
+    public static SyncScope of(String project, String version,
+            String locale) {
+        Map<String, Set<String>> versionsByProject = null;
+        if (!Strings.isNullOrEmpty(project)) {
+            versionsByProject = new HashMap<>();
+            Set<String> versions = new HashSet<>();
+            if (!Strings.isNullOrEmpty(version)) {
+                versions.add(version);
+            }
+            versionsByProject.put(project, versions);
+        }
+        Set<String> locales = Strings.isNullOrEmpty(locale) ? null :
+                new HashSet<>(Collections.singleton(locale));
+        return new SyncScope(versionsByProject, locales);
+    }
+
+    /**
+     * @return a scope covering both this and the other scope
+     */
+    public SyncScope merge(SyncScope other) {
+        Map<String, Set<String>> mergedProjects = null;
+        if (versionsByProject != null && other.versionsByProject != null) {
+            Map<String, Set<String>> union = new HashMap<>(versionsByProject);
+            other.versionsByProject.forEach((project, versions) -> union
+                    .merge(project, versions, SyncScope::unionOfVersions));
+            mergedProjects = union;
+        }
+        Set<String> mergedLocales = null;
+        if (locales != null && other.locales != null) {
+            mergedLocales = new HashSet<>(locales);
+            mergedLocales.addAll(other.locales);
+        }
+        return new SyncScope(mergedProjects, mergedLocales);
+    }
+
+    private static Set<String> unionOfVersions(Set<String> versions,
+            Set<String> others) {
+        if (versions.isEmpty() || others.isEmpty()) {
+            // one of them covers all versions
+            return new HashSet<>();
+        }
+        Set<String> union = new HashSet<>(versions);
+        union.addAll(others);
+        return union;
+    }
+
+    public boolean isEverything() {
+        return versionsByProject == null && locales == null;
+    }
+
+    /**
+     * @return whether given project version is in this scope
+     */
+    public boolean includes(String project, String version) {
+        if (versionsByProject == null) {
+            return true;
+        }
+        Set<String> versions = versionsByProject.get(project);
+        return versions != null
+                && (versions.isEmpty() || versions.contains(version));
+    }
+
+    /**
+     * @return projects in this scope or null if not restricted
+     */
+    public @CheckForNull Set<String> getProjects() {
+        return versionsByProject == null ? null : versionsByProject.keySet();
+    }
+
+    /**
+     * @return versions in this scope or null if not restricted
+     */
+    public @CheckForNull Set<String> getVersions() {
+        if (versionsByProject == null
+                || versionsByProject.values().stream().anyMatch(Set::isEmpty)) {
+            return null;
+        }
+        Set<String> versions = new HashSet<>();
+        versionsByProject.values().forEach(versions::addAll);
+        return versions;
+    }
+
+    /**
+     * @return locales in this scope or null if not restricted
+     */
+    public @CheckForNull Set<String> getLocales() {
+        return locales;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        SyncScope that = (SyncScope) o;
+        return Objects.equals(versionsByProject, that.versionsByProject) &&
+                Objects.equals(locales, that.locales);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(versionsByProject, locales);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("projects", versionsByProject)
+                .add("locales", locales)
+                .toString();
+    }
+}
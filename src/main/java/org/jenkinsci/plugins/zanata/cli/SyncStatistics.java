@@ -0,0 +1,181 @@
+/*
+ * Copyright 2017, Red Hat, Inc. and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jenkinsci.plugins.zanata.cli;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.annotation.CheckForNull;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * Where a sync spent its time: one entry per phase and project config (or
+ * per sync for phases like finding project configs and git commit), with
+ * how many documents and bytes were involved.
+ * <p>
+ * Filled in on the node running the sync and sent back with the result, so
+ * it is thread safe (project configs may be synced in parallel).
+ */
+public final class SyncStatistics implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    public enum Phase {
+        DISCOVERY("Find project configs"),
+        PROJECT_CONFIG("Project config and locales"),
+        PUSH("Push to Zanata"),
+        PULL("Pull from Zanata"),
+        GIT_COMMIT("Git commit"),
+        GIT_PUSH("Git push");
+
+        private final String displayName;
+
+        Phase(String displayName) {
+            this.displayName = displayName;
+        }
+
+        public String getDisplayName() {
+            return displayName;
+        }
+    }
+
+    public static final class Entry implements Serializable {
+        private static final long serialVersionUID = 1L;
+        private final Phase phase;
+        private final String project;
+        private final String version;
+        private final String locales;
+        private final long millis;
+        private final int documents;
+        private final long bytes;
+
+        public Entry(Phase phase, @CheckForNull String project,
+                @CheckForNull String version, @CheckForNull String locales,
+                long millis, int documents, long bytes) {
+            this.phase = phase;
+            this.project = project;
+            this.version = version;
+            this.locales = locales;
+            this.millis = millis;
+            this.documents = documents;
+            this.bytes = bytes;
+        }
+
+        public Phase getPhase() {
+            return phase;
+        }
+
+        @CheckForNull
+        public String getProject() {
+            return project;
+        }
+
+        @CheckForNull
+        public String getVersion() {
+            return version;
+        }
+
+        /**
+         * @return comma separated locales or null for all locales (or not
+         *         applicable)
+         */
+        @CheckForNull
+        public String getLocales() {
+            return locales;
+        }
+
+        public long getMillis() {
+            return millis;
+        }
+
+        public int getDocuments() {
+            return documents;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this)
+                    .add("phase", phase)
+                    .add("project", project)
+                    .add("version", version)
+                    .add("locales", locales)
+                    .add("millis", millis)
+                    .add("documents", documents)
+                    .add("bytes", bytes)
+                    .toString();
+        }
+    }
+
+    private final List<Entry> entries = new ArrayList<>();
+
+    public synchronized void record(Entry entry) {
+        entries.add(entry);
+    }
+
+    /**
+     * Records a phase which is not about a particular project config.
+     */
+    public void record(Phase phase, long millis) {
+        record(new Entry(phase, null, null, null, millis, 0, 0));
+    }
+
+    public void addAll(SyncStatistics other) {
+        List<Entry> others = other.getEntries();
+        synchronized (this) {
+            entries.addAll(others);
+        }
+    }
+
+    public synchronized List<Entry> getEntries() {
+        return Collections.unmodifiableList(new ArrayList<>(entries));
+    }
+
+    public synchronized boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    public synchronized long getMillis(Phase phase) {
+        return entries.stream().filter(e -> e.phase == phase)
+                .mapToLong(Entry::getMillis).sum();
+    }
+
+    public synchronized int getDocuments(Phase phase) {
+        return entries.stream().filter(e -> e.phase == phase)
+                .mapToInt(Entry::getDocuments).sum();
+    }
+
+    public synchronized long getBytes(Phase phase) {
+        return entries.stream().filter(e -> e.phase == phase)
+                .mapToLong(Entry::getBytes).sum();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return MoreObjects.toStringHelper(this).add("entries", entries)
+                .toString();
+    }
+}
@@ -22,6 +22,7 @@ package org.jenkinsci.plugins.zanata.cli.service;
 
 import java.io.Serializable;
 import java.nio.file.Path;
+import java.util.Set;
 
 import org.jenkinsci.plugins.zanata.exception.ZanataSyncException;
 import org.zanata.client.commands.pull.PullOptions;
@@ -34,5 +35,19 @@ public interface ZanataSyncService extends Serializable {
 
     void pushToZanata(Path repoBase) throws ZanataSyncException;
 
-    void pullFromZanata(Path repoBase) throws ZanataSyncException;
+    /**
+     * @return absolute paths of the translation dirs pulled to
+     */
+    Set<Path> pullFromZanata(Path repoBase) throws ZanataSyncException;
+
+    /**
+     * @param repoBase
+     *         base path of the source repo
+     * @param pullCacheDir
+     *         where to keep the pull cache (ETags of downloaded translations).
+     *         null to disable pull cache.
+     * @return absolute paths of the translation dirs pulled to
+     */
+    Set<Path> pullFromZanata(Path repoBase, Path pullCacheDir)
+            throws ZanataSyncException;
 }
@@ -22,6 +22,7 @@ package org.jenkinsci.plugins.zanata.cli.service.impl;
 
 import org.jenkinsci.plugins.zanata.cli.service.PullService;
 import org.jenkinsci.plugins.zanata.cli.util.PushPullOptionsUtil;
+import org.jenkinsci.plugins.zanata.cli.util.RestClientFactoryCache;
 import org.jenkinsci.plugins.zanata.exception.ZanataSyncException;
 import org.zanata.client.commands.pull.PullCommand;
 import org.zanata.client.commands.pull.PullOptions;
@@ -33,8 +34,10 @@ public class PullServiceImpl implements PullService {
 
     @Override
     public void pullFromZanata(PullOptions pullOptions) {
-        PullCommand pullCommand = PushPullOptionsUtil.makePullCommand(pullOptions);
-        try {
+        try (RestClientFactoryCache.Lease lease = PushPullOptionsUtil
+                .leaseRestClientFactory(pullOptions)) {
+            PullCommand pullCommand = PushPullOptionsUtil
+                    .makePullCommand(pullOptions, lease.getFactory());
             pullCommand.run();
         } catch (Exception e) {
             throw new ZanataSyncException("failed pulling from zanata", e);
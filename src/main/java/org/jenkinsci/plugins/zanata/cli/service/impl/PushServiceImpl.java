@@ -22,6 +22,7 @@ package org.jenkinsci.plugins.zanata.cli.service.impl;
 
 import org.jenkinsci.plugins.zanata.cli.service.PushService;
 import org.jenkinsci.plugins.zanata.cli.util.PushPullOptionsUtil;
+import org.jenkinsci.plugins.zanata.cli.util.RestClientFactoryCache;
 import org.jenkinsci.plugins.zanata.exception.ZanataSyncException;
 import org.zanata.client.commands.push.PushCommand;
 import org.zanata.client.commands.push.PushOptions;
@@ -32,8 +33,10 @@ import org.zanata.client.commands.push.PushOptions;
 public class PushServiceImpl implements PushService {
 
     public void pushToZanata(PushOptions pushOptions) {
-        PushCommand pushCommand = PushPullOptionsUtil.makePushCommand(pushOptions);
-        try {
+        try (RestClientFactoryCache.Lease lease = PushPullOptionsUtil
+                .leaseRestClientFactory(pushOptions)) {
+            PushCommand pushCommand = PushPullOptionsUtil
+                    .makePushCommand(pushOptions, lease.getFactory());
             pushCommand.run();
         } catch (Exception e) {
             throw new ZanataSyncException("failed pushing to Zanata", e);
@@ -21,19 +21,45 @@
 package org.jenkinsci.plugins.zanata.cli.service.impl;
 
 import java.io.File;
+import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import javax.annotation.CheckForNull;
 
 import org.jenkinsci.plugins.zanata.cli.HasSyncJobDetail;
+import org.jenkinsci.plugins.zanata.cli.SyncScope;
+import org.jenkinsci.plugins.zanata.cli.SyncStatistics;
 import org.jenkinsci.plugins.zanata.cli.service.PullService;
 import org.jenkinsci.plugins.zanata.cli.service.PushService;
 import org.jenkinsci.plugins.zanata.cli.service.ZanataSyncService;
+import org.jenkinsci.plugins.zanata.cli.util.DocumentFilter;
+import org.jenkinsci.plugins.zanata.cli.util.DocumentFingerprints;
+import org.jenkinsci.plugins.zanata.cli.util.PulledDocuments;
+import org.jenkinsci.plugins.zanata.cli.util.LocaleListCache;
+import org.jenkinsci.plugins.zanata.cli.util.LogGroup;
+import org.jenkinsci.plugins.zanata.cli.util.LogRouter;
+import org.jenkinsci.plugins.zanata.cli.util.ProjectConfigFinder;
 import org.jenkinsci.plugins.zanata.cli.util.PushPullOptionsUtil;
 import org.jenkinsci.plugins.zanata.exception.ZanataSyncException;
 import org.slf4j.Logger;
@@ -43,11 +69,19 @@ import org.zanata.client.commands.pull.PullOptions;
 import org.zanata.client.commands.pull.PullOptionsImpl;
 import org.zanata.client.commands.push.PushOptions;
 import org.zanata.client.commands.push.PushOptionsImpl;
+import org.zanata.client.config.LocaleMapping;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Joiner;
 import com.google.common.base.Splitter;
 import com.google.common.base.Strings;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.MapDifference;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 /**
  * @author Patrick Huang <a href="mailto:pahuang@redhat.com">pahuang@redhat.com</a>
@@ -58,6 +92,21 @@ public class ZanataSyncServiceImpl implements ZanataSyncService {
             LoggerFactory.getLogger(ZanataSyncServiceImpl.class);
     private static final long serialVersionUID = 1L;
 
+    /**
+     * Workspace relative location of pull cache. It lives under .zanata-cache
+     * so that it's never committed back to the repo.
+     */
+    public static final String WORKSPACE_PULL_CACHE = ".zanata-cache/pull";
+    // one lock per pull cache dir in this JVM. Gone once nobody holds it.
+    private static final LoadingCache<Path, Object> PULL_CACHE_LOCKS =
+            CacheBuilder.newBuilder().weakValues()
+                    .build(new CacheLoader<Path, Object>() {
+                        @Override
+                        public Object load(Path cacheDir) {
+                            return new Object();
+                        }
+                    });
+
     private final PushService pushService;
     private final PullService pullService;
     private final Set<String> projectConfigs;
@@ -66,10 +115,27 @@ public class ZanataSyncServiceImpl implements ZanataSyncService {
     private final String apiKey;
     private final String localeId;
     private final String pushToZanataOption;
+    private final int concurrency;
+    private final boolean incrementalPush;
+    private final String pullCache;
+    private final SyncScope pullScope;
+    // created here so that excludes and depth come from controller settings
+    private final ProjectConfigFinder projectConfigFinder =
+            ProjectConfigFinder.fromSystemProperties();
+    // filled in on the node and sent back with the service
+    private final SyncStatistics statistics = new SyncStatistics();
+    private transient LocaleListCache localeListCache;
 
     @VisibleForTesting
     protected ZanataSyncServiceImpl(PullService pullService,
             PushService pushService, HasSyncJobDetail jobDetail) {
+        this(pullService, pushService, jobDetail, SyncScope.EVERYTHING);
+    }
+
+    @VisibleForTesting
+    protected ZanataSyncServiceImpl(PullService pullService,
+            PushService pushService, HasSyncJobDetail jobDetail,
+            SyncScope pullScope) {
         this.pullService = pullService;
         this.pushService = pushService;
         zanataUrl = jobDetail.getZanataURL();
@@ -80,18 +146,27 @@ public class ZanataSyncServiceImpl implements ZanataSyncService {
         projectConfigs = getProjectConfigs(jobDetail.getZanataProjectConfigs());
 
         localeId = jobDetail.getZanataLocaleIds();
-
-
-        // if project id is given from webhook, only handle this project
-        // String projectId = jobDetail.getProject();
-        // if (!Strings.isNullOrEmpty(projectId)) {
-        // pullOptions.setProj(projectId);
-        // pushOptions.setProj(projectId);
-        // }
+        concurrency = jobDetail.getConcurrency();
+        incrementalPush = jobDetail.isIncrementalPush();
+        pullCache = Strings.isNullOrEmpty(jobDetail.getPullCache()) ?
+                HasSyncJobDetail.PULL_CACHE_NONE : jobDetail.getPullCache();
+        // e.g. project, version and locale given by webhook
+        this.pullScope = pullScope;
     }
 
     public ZanataSyncServiceImpl(HasSyncJobDetail jobDetail) {
-        this(new PullServiceImpl(), new PushServiceImpl(), jobDetail);
+        this(jobDetail, SyncScope.EVERYTHING);
+    }
+
+    /**
+     * @param pullScope
+     *         pull will only handle project configs and locales in this
+     *         scope. Push is not affected.
+     */
+    public ZanataSyncServiceImpl(HasSyncJobDetail jobDetail,
+            SyncScope pullScope) {
+        this(new PullServiceImpl(), new PushServiceImpl(), jobDetail,
+                pullScope);
     }
 
     private PushOptionsImpl newPushOptionsFromJobConfig() {
@@ -119,7 +194,6 @@ public class ZanataSyncServiceImpl implements ZanataSyncService {
             pullOptions.setLocales(localeId);
         }
         overrideURLIfSpecified(pullOptions, zanataUrl);
-        // TODO https://zanata.atlassian.net/browse/ZNTA-1427 is fixed, we should set cacheDir to workspace root
         pullOptions.setUseCache(false);
         //        this.pullOptions.setLogHttp(true);
         return pullOptions;
@@ -136,42 +210,78 @@ public class ZanataSyncServiceImpl implements ZanataSyncService {
 
     @Override
     public void pushToZanata(Path repoBase) throws ZanataSyncException {
-        if (projectConfigs.isEmpty()) {
-            Set<File> projectConfigs = findProjectConfigsOrThrow(repoBase);
-            for (File config : projectConfigs) {
+        DocumentFingerprints fingerprints =
+                incrementalPush ? DocumentFingerprints.load(repoBase) : null;
+        try {
+            syncProjectConfigs(repoBase, "push", config -> {
                 PushOptionsImpl opts = newPushOptionsFromJobConfig();
                 String project = opts.getProj();
 
-                PushPullOptionsUtil
-                        .applyProjectConfig(opts, config);
-                pushIfProjectIdMatchesConfig(opts, project, config);
-            }
-        } else {
-            for (String projectConfig : projectConfigs) {
-                Path absPath = Paths.get(repoBase.toString(), projectConfig);
-                if (Files.exists(absPath)) {
-                    PushOptionsImpl opts = newPushOptionsFromJobConfig();
-                    String project = opts.getProj();
-
-                    PushPullOptionsUtil.applyProjectConfig(
-                            opts, absPath.toFile());
-                    pushIfProjectIdMatchesConfig(opts, project, absPath.toFile());
-                } else {
-                    log.warn("{} does not exist! Ignored!", projectConfig);
+                applyProjectConfig(opts, config);
+                if (fingerprints == null) {
+                    pushIfProjectIdMatchesConfig(opts, project, config);
+                    return;
+                }
+                String configKey = fingerprints.configKey(config);
+                String target = DocumentFingerprints.targetOf(opts);
+                SortedMap<String, String> current = fingerprints.compute(opts);
+                Set<String> changed =
+                        fingerprints.changedSince(configKey, target, current);
+                if (changed.isEmpty()
+                        && fingerprints.isRecordedFor(configKey, target)) {
+                    log.info("no document changed since last push. Skip {}",
+                            config);
+                    return;
+                }
+                log.info("{} document(s) changed since last push for {}: {}",
+                        changed.size(), config, changed);
+                if (pushIfProjectIdMatchesConfig(opts, project, config)) {
+                    fingerprints.record(configKey, target, current);
                 }
+            });
+        } finally {
+            if (fingerprints != null) {
+                // configs pushed successfully are remembered even if others failed
+                fingerprints.save();
             }
         }
     }
 
-    private void pushIfProjectIdMatchesConfig(PushOptions opts, String project,
-            File config) {
+    /**
+     * @return the current statistics of this service
+     */
+    public SyncStatistics getStatistics() {
+        return statistics;
+    }
+
+    private void applyProjectConfig(PushPullOptions opts, File config) {
+        long start = System.currentTimeMillis();
+        PushPullOptionsUtil.applyProjectConfig(opts, config, localeListCache);
+        // includes fetching locales from server if zanata.xml has none
+        statistics.record(new SyncStatistics.Entry(
+                SyncStatistics.Phase.PROJECT_CONFIG, opts.getProj(),
+                opts.getProjectVersion(), null,
+                System.currentTimeMillis() - start, 0, 0));
+    }
+
+    private boolean pushIfProjectIdMatchesConfig(PushOptions opts,
+            String project, File config) {
         if (Strings.isNullOrEmpty(project) || Objects.equals(opts.getProj(), project)) {
+            long start = System.currentTimeMillis();
             pushService.pushToZanata(opts);
+            boolean sourceOnly = pushToZanataOption == null
+                    || "source".equalsIgnoreCase(pushToZanataOption);
+            List<File> dirs = sourceOnly ?
+                    Collections.singletonList(opts.getSrcDir()) :
+                    Arrays.asList(opts.getSrcDir(), opts.getTransDir());
+            recordDocuments(SyncStatistics.Phase.PUSH, opts, start, dirs, 0);
+            return true;
         } else if (!Strings.isNullOrEmpty(project)) {
             log.warn(
                     "project id is provided as {}. Skip {} which has project set to {}",
                     config, opts.getProj());
         }
+        return false;
     }
 
     private static void overrideURLIfSpecified(PushPullOptions opts,
@@ -188,7 +298,7 @@ public class ZanataSyncServiceImpl implements ZanataSyncService {
 
     private Set<File> findProjectConfigsOrThrow(Path repoBase) {
         Set<File> projectConfigs =
-                PushPullOptionsUtil.findProjectConfigs(repoBase.toFile());
+                projectConfigFinder.find(repoBase.toFile());
 
         log.info("found {} in {}", projectConfigs, repoBase);
         if (projectConfigs.isEmpty()) {
@@ -198,44 +308,285 @@ public class ZanataSyncServiceImpl implements ZanataSyncService {
         return projectConfigs;
     }
 
-    @Override
-    public void pullFromZanata(Path repoBase) throws ZanataSyncException {
+    private List<File> resolveProjectConfigs(Path repoBase) {
         if (projectConfigs.isEmpty()) {
-            Set<File> projectConfigs =
-                    findProjectConfigsOrThrow(repoBase);
-            for (File config : projectConfigs) {
+            long start = System.currentTimeMillis();
+            List<File> found = findProjectConfigsOrThrow(repoBase).stream()
+                    .sorted().collect(Collectors.toList());
+            statistics.record(SyncStatistics.Phase.DISCOVERY,
+                    System.currentTimeMillis() - start);
+            return found;
+        }
+        List<File> configs = new ArrayList<>(projectConfigs.size());
+        for (String projectConfig : projectConfigs) {
+            Path absPath = Paths.get(repoBase.toString(), projectConfig);
+            if (Files.exists(absPath)) {
+                configs.add(absPath.toFile());
+            } else {
+                log.warn("{} does not exist! Ignored!", projectConfig);
+            }
+        }
+        return configs;
+    }
+
+    /**
+     * Runs the given action for each project config. If concurrency is
+     * greater than one, project configs are handled in parallel and output
+     * of each project config is grouped together.
+     */
+    private void syncProjectConfigs(Path repoBase, String action,
+            Consumer<File> syncAction) {
+        List<File> configs = resolveProjectConfigs(repoBase);
+        if (localeListCache == null) {
+            // transient field will be null after this object is sent to a node
+            localeListCache = LocaleListCache.forSync();
+        }
+        if (concurrency <= 1 || configs.size() <= 1) {
+            configs.forEach(syncAction);
+            return;
+        }
+        int threads = Math.min(concurrency, configs.size());
+        log.info("{} {} project configs using {} threads", action,
+                configs.size(), threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads,
+                new ThreadFactoryBuilder().setDaemon(true)
+                        .setNameFormat("zanata-" + action + "-%d").build());
+        try {
+            Map<File, Future<?>> results = new LinkedHashMap<>();
+            for (File config : configs) {
+                String title = action + " " + repoBase.relativize(config.toPath());
+                results.put(config, executor.submit(LogRouter.propagate(() -> {
+                    try (LogGroup ignored = LogGroup.begin(title)) {
+                        syncAction.accept(config);
+                    }
+                })));
+            }
+            Map<File, Throwable> failures = new LinkedHashMap<>();
+            for (Map.Entry<File, Future<?>> result : results.entrySet()) {
+                try {
+                    result.getValue().get();
+                } catch (ExecutionException e) {
+                    log.error("failed to {} {}", action, result.getKey(),
+                            e.getCause());
+                    failures.put(result.getKey(), e.getCause());
+                }
+            }
+            if (!failures.isEmpty()) {
+                ZanataSyncException exception = new ZanataSyncException(
+                        String.format("failed to %s %d of %d project configs: %s",
+                                action, failures.size(), configs.size(),
+                                failures.keySet()),
+                        failures.values().iterator().next());
+                failures.values().stream().skip(1)
+                        .forEach(exception::addSuppressed);
+                throw exception;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ZanataSyncException("interrupted during " + action, e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Override
+    public Set<Path> pullFromZanata(Path repoBase) throws ZanataSyncException {
+        // node level cache location is only known to the caller
+        return pullFromZanata(repoBase,
+                HasSyncJobDetail.PULL_CACHE_NONE.equals(pullCache) ? null :
+                        repoBase.resolve(WORKSPACE_PULL_CACHE));
+    }
+
+    @Override
+    public Set<Path> pullFromZanata(Path repoBase, Path pullCacheDir)
+            throws ZanataSyncException {
+        Set<Path> transDirs = Collections.synchronizedSet(new TreeSet<>());
+        DocumentFingerprints fingerprints =
+                incrementalPush ? DocumentFingerprints.load(repoBase) : null;
+        try {
+            syncProjectConfigs(repoBase, "pull", config -> {
                 PullOptionsImpl opts = newPullOptionsFromJobConfig();
                 String project = opts.getProj();
 
-                PushPullOptionsUtil
-                        .applyProjectConfig(opts, config);
-                pullIfProjectIdMatchesConfig(opts, project, config);
-            }
-        } else {
-            for (String projectConfig : projectConfigs) {
-                Path absPath = Paths.get(repoBase.toString(), projectConfig);
-                if (Files.exists(absPath)) {
-                    PullOptionsImpl opts = newPullOptionsFromJobConfig();
-                    String project = opts.getProj();
-
-                    opts = PushPullOptionsUtil.applyProjectConfig(opts,
-                            absPath.toFile());
-                    pullIfProjectIdMatchesConfig(opts, project, absPath.toFile());
-                } else {
-                    log.warn("{} does not exist! Ignored!", projectConfig);
+                applyProjectConfig(opts, config);
+                if (!restrictToPullScope(opts, config)) {
+                    return;
+                }
+                Path cacheDir = pullCacheDir == null ? null :
+                        pullCacheDir.resolve(
+                                pullCacheKey(repoBase, config, opts));
+                if (fingerprints == null) {
+                    if (pull(opts, project, config, cacheDir)) {
+                        transDirs.add(transDirOf(opts));
+                    }
+                    return;
                 }
+                // hash what the next push would pick up
+                PushOptionsImpl pushOpts = newPushOptionsFromJobConfig();
+                // not timed again. It was recorded for the pull options.
+                PushPullOptionsUtil.applyProjectConfig(pushOpts, config,
+                        localeListCache);
+                SortedMap<String, String> before =
+                        fingerprints.compute(pushOpts);
+                if (!pull(opts, project, config, cacheDir)) {
+                    return;
+                }
+                transDirs.add(transDirOf(opts));
+                // translations written by pull should not trigger next push
+                MapDifference<String, String> diff = Maps.difference(before,
+                        fingerprints.compute(pushOpts));
+                Map<String, String> updated =
+                        new LinkedHashMap<>(diff.entriesOnlyOnRight());
+                diff.entriesDiffering().forEach(
+                        (doc, values) -> updated.put(doc, values.rightValue()));
+                fingerprints.update(fingerprints.configKey(config),
+                        DocumentFingerprints.targetOf(pushOpts), updated);
+            });
+        } finally {
+            if (fingerprints != null) {
+                fingerprints.save();
+            }
+        }
+        synchronized (transDirs) {
+            return ImmutableSet.copyOf(transDirs);
+        }
+    }
+
+    private static Path transDirOf(PullOptions opts) {
+        return opts.getTransDir().toPath().toAbsolutePath().normalize();
+    }
+
+    /**
+     * @return false if the project config is not affected at all
+     */
+    private boolean restrictToPullScope(PullOptionsImpl opts, File config) {
+        if (pullScope.isEverything()) {
+            return true;
+        }
+        if (!pullScope.includes(opts.getProj(), opts.getProjectVersion())) {
+            log.info("{} ({}/{}) is not in {}. Skip.", config,
+                    opts.getProj(), opts.getProjectVersion(), pullScope);
+            return false;
+        }
+        if (pullScope.getLocales() == null) {
+            return true;
+        }
+        Set<String> locales = new TreeSet<>(pullScope.getLocales());
+        if (opts.getLocaleMapList() != null) {
+            locales.retainAll(opts.getLocaleMapList().stream()
+                    .map(LocaleMapping::getLocale)
+                    .collect(Collectors.toSet()));
+        }
+        if (!Strings.isNullOrEmpty(localeId)) {
+            locales.retainAll(ImmutableSet.copyOf(Splitter.on(",")
+                    .trimResults().omitEmptyStrings().split(localeId)));
+        }
+        if (locales.isEmpty()) {
+            log.info("none of {} is configured for {}. Skip.",
+                    pullScope.getLocales(), config);
+            return false;
+        }
+        opts.setLocales(Joiner.on(",").join(locales));
+        return true;
+    }
+
+    /**
+     * ETags in pull cache are keyed by document and locale only, so each
+     * project config and version needs its own cache dir.
+     */
+    private static String pullCacheKey(Path repoBase, File config,
+            PullOptions opts) {
+        String configKey = repoBase.relativize(config.toPath()).toString()
+                .replace(File.separatorChar, '_');
+        return configKey + "_" + opts.getProj() + "_" + opts.getProjectVersion();
+    }
+
+    /**
+     * Pulls with the cache dir if given. The cache is only used by one pull
+     * at a time (e.g. parallel branches in one workspace), and is dropped if
+     * the translation files no longer match what was pulled last time.
+     */
+    private boolean pull(PullOptionsImpl opts, String project, File config,
+            @CheckForNull Path cacheDir) {
+        if (cacheDir == null) {
+            return pullIfProjectIdMatchesConfig(opts, project, config);
+        }
+        synchronized (PULL_CACHE_LOCKS.getUnchecked(
+                cacheDir.toAbsolutePath().normalize())) {
+            PulledDocuments.dropCacheIfStale(cacheDir, opts);
+            usePullCache(opts, cacheDir);
+            boolean pulled =
+                    pullIfProjectIdMatchesConfig(opts, project, config);
+            if (pulled && opts.getUseCache()) {
+                PulledDocuments.record(cacheDir, opts);
             }
+            return pulled;
         }
     }
 
-    private void pullIfProjectIdMatchesConfig(PullOptions opts,
+    private static void usePullCache(PullOptionsImpl opts, Path cacheDir) {
+        try {
+            Files.createDirectories(cacheDir);
+        } catch (IOException e) {
+            log.warn("can not create pull cache dir {}. Pull without cache.",
+                    cacheDir, e);
+            return;
+        }
+        log.debug("using pull cache in {}", cacheDir);
+        opts.setUseCache(true);
+        opts.setCacheDir(cacheDir.toFile());
+    }
+
+    private boolean pullIfProjectIdMatchesConfig(PullOptions opts,
             String project, File config) {
         if (Strings.isNullOrEmpty(project) || Objects.equals(opts.getProj(), project)) {
+            long start = System.currentTimeMillis();
             pullService.pullFromZanata(opts);
+            // only count what the pull has written
+            recordDocuments(SyncStatistics.Phase.PULL, opts, start,
+                    Collections.singletonList(opts.getTransDir()),
+                    start - start % 1000);
+            return true;
         } else if (!Strings.isNullOrEmpty(project)) {
             log.warn(
                     "project id is provided as {}. Skip {} which has project set to {}",
                     config, opts.getProj());
         }
+        return false;
+    }
+
+    /**
+     * Records time taken since start, with number and size of the documents
+     * in the given dirs modified since modifiedSince (0 for all documents).
+     */
+    private void recordDocuments(SyncStatistics.Phase phase,
+            PushPullOptions opts, long start, List<File> dirs,
+            long modifiedSince) {
+        long millis = System.currentTimeMillis() - start;
+        int[] documents = { 0 };
+        long[] bytes = { 0 };
+        DocumentFilter filter = DocumentFilter.of(opts);
+        for (File dir : new LinkedHashSet<>(dirs)) {
+            if (dir == null) {
+                continue;
+            }
+            try {
+                // only what push/pull would handle, not e.g. build output
+                filter.forEachDocument(dir.toPath(), (file, attrs) -> {
+                    if (attrs.lastModifiedTime().toMillis() >= modifiedSince) {
+                        documents[0]++;
+                        bytes[0] += attrs.size();
+                    }
+                });
+            } catch (IOException e) {
+                log.debug("can not count documents in {}", dir, e);
+            }
+        }
+        String[] locales = opts.getLocales();
+        statistics.record(new SyncStatistics.Entry(phase, opts.getProj(),
+                opts.getProjectVersion(),
+                locales == null || locales.length == 0 ? null :
+                        Joiner.on(",").join(locales),
+                millis, documents[0], bytes[0]));
     }
 }
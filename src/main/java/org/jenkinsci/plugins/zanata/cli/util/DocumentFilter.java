@@ -0,0 +1,165 @@
+/*
+ * Copyright 2017, Red Hat, Inc. and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jenkinsci.plugins.zanata.cli.util;
+
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+import org.zanata.client.commands.PushPullOptions;
+import org.zanata.client.commands.push.PushOptions;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Tells which files under the source and translation dirs of a project
+ * config are documents, roughly the way push picks them: by the includes and
+ * excludes of the project config, or by file extension of the project type
+ * when there are no includes. Anything else (e.g. build output or the project
+ * config itself) is left out.
+ */
+public final class DocumentFilter {
+    private static final Set<String> IGNORED_DIRS =
+            ImmutableSet.of(".zanata-cache", ".git");
+    private static final String PROJECT_CONFIG = "zanata.xml";
+    private static final List<String> GETTEXT =
+            ImmutableList.of("**/*.pot", "**/*.po");
+    private static final List<String> PROPERTIES =
+            ImmutableList.of("**/*.properties");
+    private static final List<String> XML = ImmutableList.of("**/*.xml");
+    private static final Map<String, List<String>> TYPE_INCLUDES =
+            ImmutableMap.<String, List<String>>builder()
+                    .put("gettext", GETTEXT)
+                    .put("podir", GETTEXT)
+                    .put("properties", PROPERTIES)
+                    .put("utf8properties", PROPERTIES)
+                    .put("xliff", XML)
+                    .put("xml", XML)
+                    .build();
+
+    // empty means everything
+    private final List<PathMatcher> includes;
+    private final List<PathMatcher> excludes;
+
+    private DocumentFilter(List<PathMatcher> includes,
+            List<PathMatcher> excludes) {
+        this.includes = includes;
+        this.excludes = excludes;
+    }
+
+    /**
+     * @param options
+     *         options after applying the project config
+     */
+    public static DocumentFilter of(PushPullOptions options) {
+        List<String> includes = Collections.emptyList();
+        List<String> excludes = Collections.emptyList();
+        if (options instanceof PushOptions) {
+            PushOptions pushOptions = (PushOptions) options;
+            includes = nullToEmpty(pushOptions.getIncludes());
+            excludes = nullToEmpty(pushOptions.getExcludes());
+        }
+        if (includes.isEmpty() && options.getProjectType() != null) {
+            includes = TYPE_INCLUDES.getOrDefault(
+                    options.getProjectType().toLowerCase(),
+                    Collections.emptyList());
+        }
+        return new DocumentFilter(matchers(includes), matchers(excludes));
+    }
+
+    private static List<String> nullToEmpty(List<String> patterns) {
+        return patterns == null ? Collections.emptyList() : patterns;
+    }
+
+    /**
+     * Ant style patterns as glob matchers. A leading "**&#47;" also matches
+     * files right in the dir.
+     */
+    private static List<PathMatcher> matchers(List<String> patterns) {
+        FileSystem fs = FileSystems.getDefault();
+        List<PathMatcher> matchers = new ArrayList<>();
+        for (String pattern : patterns) {
+            matchers.add(fs.getPathMatcher("glob:" + pattern));
+            if (pattern.startsWith("**/")) {
+                matchers.add(fs.getPathMatcher("glob:" + pattern.substring(3)));
+            }
+        }
+        return matchers;
+    }
+
+    /**
+     * @param relativePath
+     *         path of a file relative to the source or translation dir
+     */
+    public boolean isDocument(Path relativePath) {
+        if (PROJECT_CONFIG.equals(String.valueOf(relativePath.getFileName()))) {
+            return false;
+        }
+        boolean included = includes.isEmpty() || includes.stream()
+                .anyMatch(m -> m.matches(relativePath));
+        return included && excludes.stream()
+                .noneMatch(m -> m.matches(relativePath));
+    }
+
+    /**
+     * Calls the visitor with each document under the dir.
+     */
+    public void forEachDocument(Path dir,
+            BiConsumer<Path, BasicFileAttributes> visitor) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        Files.walkFileTree(dir, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path path,
+                    BasicFileAttributes attrs) {
+                String name = String.valueOf(path.getFileName());
+                return IGNORED_DIRS.contains(name) ?
+                        FileVisitResult.SKIP_SUBTREE :
+                        FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file,
+                    BasicFileAttributes attrs) {
+                if (attrs.isRegularFile()
+                        && isDocument(dir.relativize(file))) {
+                    visitor.accept(file, attrs);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
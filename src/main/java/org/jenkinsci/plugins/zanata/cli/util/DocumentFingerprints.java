@@ -0,0 +1,308 @@
+/*
+ * Copyright 2017, Red Hat, Inc. and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jenkinsci.plugins.zanata.cli.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.jenkinsci.plugins.zanata.exception.ZanataSyncException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.zanata.client.commands.PushPullType;
+import org.zanata.client.commands.push.PushOptions;
+
+import com.google.common.base.Joiner;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+
+/**
+ * Remembers content hashes of the documents of each project config as of the
+ * last successful push, together with where they were pushed to (server,
+ * project, version and push type). It is stored in the workspace under
+ * {@value #STATE_FILE} (which is never committed) and is used to skip pushing
+ * project configs whose documents have not changed since. Pushing somewhere
+ * else counts as a change of every document.
+ * <p>
+ * Only files the push would pick up are hashed (see {@link DocumentFilter}).
+ * <p>
+ * Several syncs may share a workspace (e.g. parallel Pipeline branches), so
+ * {@link #save()} applies the changes made through this instance to what is
+ * in the state file by then rather than overwriting it.
+ * <p>
+ * The decision is made per project config rather than per document because
+ * narrowing down a push to some documents would make Zanata treat the other
+ * documents as obsolete.
+ */
+public final class DocumentFingerprints {
+    private static final Logger log =
+            LoggerFactory.getLogger(DocumentFingerprints.class);
+    public static final String STATE_FILE =
+            ".zanata-cache/jenkins-push-state.properties";
+    private static final String SEPARATOR = "|";
+    private static final String TARGET_SUFFIX = "#target";
+    // one lock per state file in this JVM. Gone once nobody holds it.
+    private static final LoadingCache<Path, Object> STATE_LOCKS =
+            CacheBuilder.newBuilder().weakValues()
+                    .build(new CacheLoader<Path, Object>() {
+                        @Override
+                        public Object load(Path stateFile) {
+                            return new Object();
+                        }
+                    });
+
+    private final Path repoBase;
+    // guarded by this. As loaded plus changes.
+    private final Properties state;
+    // guarded by this. Changes not saved yet.
+    private final List<Consumer<Properties>> changes = new ArrayList<>();
+
+    private DocumentFingerprints(Path repoBase, Properties state) {
+        this.repoBase = repoBase;
+        this.state = state;
+    }
+
+    /**
+     * @param repoBase
+     *         base path of the source repo
+     * @return fingerprints recorded by last sync or empty if there is none
+     */
+    public static DocumentFingerprints load(Path repoBase) {
+        Path stateFile = repoBase.resolve(STATE_FILE);
+        synchronized (lockFor(stateFile)) {
+            return new DocumentFingerprints(repoBase, read(stateFile));
+        }
+    }
+
+    private static Object lockFor(Path stateFile) {
+        return STATE_LOCKS.getUnchecked(stateFile.toAbsolutePath().normalize());
+    }
+
+    private static Properties read(Path stateFile) {
+        Properties state = new Properties();
+        if (Files.isRegularFile(stateFile)) {
+            try (InputStream in = Files.newInputStream(stateFile)) {
+                state.load(in);
+            } catch (IOException e) {
+                log.warn("can not read {}. All documents will be pushed.",
+                        stateFile, e);
+                state.clear();
+            }
+        }
+        return state;
+    }
+
+    /**
+     * @param projectConfig
+     *         absolute path of a project config (zanata.xml)
+     * @return key of the project config used in the state file
+     */
+    public String configKey(File projectConfig) {
+        return toKey(repoBase.relativize(projectConfig.toPath()));
+    }
+
+    /**
+     * @param options
+     *         push options after applying the project config
+     * @return where a push with the options goes to
+     */
+    public static String targetOf(PushOptions options) {
+        return Joiner.on(SEPARATOR).useForNull("").join(options.getUrl(),
+                options.getProj(), options.getProjectVersion(),
+                options.getPushType());
+    }
+
+    /**
+     * Hashes the documents a push with the options would pick up.
+     *
+     * @param options
+     *         push options after applying the project config
+     * @return document path (relative to repo base) to its content hash
+     */
+    public SortedMap<String, String> compute(PushOptions options) {
+        SortedMap<String, String> fingerprints = new TreeMap<>();
+        PushPullType pushType = options.getPushType();
+        Set<Path> dirs = new HashSet<>();
+        if (pushType != PushPullType.Trans) {
+            dirs.add(options.getSrcDir().toPath().normalize());
+        }
+        if (pushType != PushPullType.Source) {
+            dirs.add(options.getTransDir().toPath().normalize());
+        }
+        DocumentFilter filter = DocumentFilter.of(options);
+        for (Path dir : dirs) {
+            hashDocumentsUnder(dir, filter, fingerprints);
+        }
+        return fingerprints;
+    }
+
+    private void hashDocumentsUnder(Path dir, DocumentFilter filter,
+            Map<String, String> fingerprints) {
+        try {
+            filter.forEachDocument(dir, (file, attrs) -> {
+                try (InputStream in = Files.newInputStream(file)) {
+                    fingerprints.put(toKey(repoBase.relativize(file)),
+                            DigestUtils.sha1Hex(in));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (IOException | UncheckedIOException e) {
+            throw new ZanataSyncException("failed hashing documents in " + dir,
+                    e);
+        }
+    }
+
+    /**
+     * @param target
+     *         see {@link #targetOf(PushOptions)}
+     * @return documents added, removed or modified since the recorded state,
+     *         or all documents if the recorded state was pushed to another
+     *         target
+     */
+    public synchronized Set<String> changedSince(String configKey,
+            String target, Map<String, String> current) {
+        Map<String, String> recorded = recorded(configKey);
+        Set<String> changed = new HashSet<>(recorded.keySet());
+        changed.addAll(current.keySet());
+        if (isRecordedFor(configKey, target)) {
+            changed.removeIf(
+                    doc -> Objects.equals(recorded.get(doc), current.get(doc)));
+        }
+        return changed;
+    }
+
+    /**
+     * Replaces recorded fingerprints of a project config after a successful
+     * push.
+     */
+    public synchronized void record(String configKey, String target,
+            Map<String, String> fingerprints) {
+        Map<String, String> copy = new TreeMap<>(fingerprints);
+        change(props -> {
+            props.stringPropertyNames().stream()
+                    .filter(key -> key.startsWith(configKey + SEPARATOR))
+                    .forEach(props::remove);
+            props.setProperty(configKey + TARGET_SUFFIX, target);
+            copy.forEach((doc, hash) -> props
+                    .setProperty(configKey + SEPARATOR + doc, hash));
+        });
+    }
+
+    /**
+     * Updates recorded fingerprints of some documents of a project config
+     * (e.g. translation files written by a pull). Nothing is updated unless
+     * the recorded state was pushed to the same target.
+     */
+    public synchronized void update(String configKey, String target,
+            Map<String, String> fingerprints) {
+        Map<String, String> copy = new TreeMap<>(fingerprints);
+        change(props -> {
+            if (isRecordedFor(props, configKey, target)) {
+                copy.forEach((doc, hash) -> props
+                        .setProperty(configKey + SEPARATOR + doc, hash));
+            }
+        });
+    }
+
+    private void change(Consumer<Properties> change) {
+        change.accept(state);
+        changes.add(change);
+    }
+
+    /**
+     * @return whether fingerprints of the project config were recorded by a
+     *         push to the target
+     */
+    public synchronized boolean isRecordedFor(String configKey,
+            String target) {
+        return isRecordedFor(state, configKey, target);
+    }
+
+    private static boolean isRecordedFor(Properties props, String configKey,
+            String target) {
+        return target.equals(props.getProperty(configKey + TARGET_SUFFIX));
+    }
+
+    private Map<String, String> recorded(String configKey) {
+        String prefix = configKey + SEPARATOR;
+        Map<String, String> recorded = new TreeMap<>();
+        for (String key : state.stringPropertyNames()) {
+            if (key.startsWith(prefix)) {
+                recorded.put(key.substring(prefix.length()),
+                        state.getProperty(key));
+            }
+        }
+        return recorded;
+    }
+
+    /**
+     * Applies the changes made since loading (or last save) to the state
+     * file in the workspace. Changes saved by others in the meantime are
+     * kept.
+     */
+    public synchronized void save() {
+        if (changes.isEmpty()) {
+            return;
+        }
+        Path stateFile = repoBase.resolve(STATE_FILE);
+        synchronized (lockFor(stateFile)) {
+            Properties merged = read(stateFile);
+            changes.forEach(change -> change.accept(merged));
+            changes.clear();
+            state.clear();
+            state.putAll(merged);
+            try {
+                Files.createDirectories(stateFile.getParent());
+                Path tempFile = Files.createTempFile(stateFile.getParent(),
+                        "push-state", ".tmp");
+                try (OutputStream out = Files.newOutputStream(tempFile)) {
+                    merged.store(out, "document hashes as of last Zanata push");
+                }
+                Files.move(tempFile, stateFile,
+                        StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                log.warn("failed saving {}", stateFile, e);
+            }
+        }
+    }
+
+    private static String toKey(Path relativePath) {
+        return relativePath.toString().replace(File.separatorChar, '/');
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2017, Red Hat, Inc. and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jenkinsci.plugins.zanata.cli.util;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.jenkinsci.plugins.zanata.exception.ZanataSyncException;
+import org.zanata.client.commands.PushPullOptions;
+import org.zanata.client.config.LocaleList;
+
+import com.google.common.annotations.VisibleForTesting;
+
+/**
+ * Caches locale lists fetched from Zanata server so that each distinct
+ * project version is only fetched once no matter how many project configs
+ * point to it.
+ * <p>
+ * By default a cache lives for one sync. If system property
+ * {@code org.jenkinsci.plugins.zanata.cli.util.LocaleListCache.ttlSeconds} is
+ * set, one cache is shared by all syncs in the JVM and entries expire after
+ * the given seconds.
+ */
+public final class LocaleListCache {
+    private static final long TTL_MILLIS = TimeUnit.SECONDS.toMillis(
+            Long.getLong(LocaleListCache.class.getName() + ".ttlSeconds", 0));
+    private static final LocaleListCache SHARED = new LocaleListCache(TTL_MILLIS);
+
+    private final long ttlMillis;
+    private final ConcurrentMap<Key, Entry> entries = new ConcurrentHashMap<>();
+
+    @VisibleForTesting
+    LocaleListCache(long ttlMillis) {
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * @return a cache to use for one sync. It is shared across syncs if a TTL
+     * is configured.
+     */
+    public static LocaleListCache forSync() {
+        return TTL_MILLIS > 0 ? SHARED : new LocaleListCache(0);
+    }
+
+    /**
+     * @param options
+     *         options with server URL, project and version resolved
+     * @param fetcher
+     *         fetches locale list from server if it's not cached
+     * @return a copy of the cached locale list
+     */
+    public LocaleList get(PushPullOptions options,
+            Supplier<LocaleList> fetcher) {
+        Key key = new Key(options);
+        long now = System.currentTimeMillis();
+        Entry entry = entries.compute(key,
+                (k, existing) -> existing == null || existing.isExpired(now) ?
+                        new Entry(fetcher, now) : existing);
+        // only the first caller actually runs the fetch. Others wait for it.
+        entry.task.run();
+        try {
+            return copyOf(entry.task.get());
+        } catch (ExecutionException e) {
+            entries.remove(key, entry);
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new ZanataSyncException("failed fetching locales from server",
+                    e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ZanataSyncException("interrupted fetching locales", e);
+        }
+    }
+
+    private static LocaleList copyOf(LocaleList localeList) {
+        if (localeList == null) {
+            return null;
+        }
+        LocaleList copy = new LocaleList();
+        copy.addAll(localeList);
+        return copy;
+    }
+
+    private final class Entry {
+        private final FutureTask<LocaleList> task;
+        private final long created;
+
+        private Entry(Supplier<LocaleList> fetcher, long created) {
+            this.task = new FutureTask<>(fetcher::get);
+            this.created = created;
+        }
+
+        private boolean isExpired(long now) {
+            return ttlMillis > 0 && now - created >= ttlMillis;
+        }
+    }
+
+    private static final class Key {
+        private final String url;
+        private final String project;
+        private final String version;
+
+        private Key(PushPullOptions options) {
+            url = String.valueOf(options.getUrl());
+            project = options.getProj();
+            version = options.getProjectVersion();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return Objects.equals(url, key.url) &&
+                    Objects.equals(project, key.project) &&
+                    Objects.equals(version, key.version);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(url, project, version);
+        }
+    }
+}
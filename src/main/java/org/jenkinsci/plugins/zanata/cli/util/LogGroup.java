@@ -0,0 +1,84 @@
+/*
+ * Copyright 2017, Red Hat, Inc. and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jenkinsci.plugins.zanata.cli.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.annotation.CheckForNull;
+
+/**
+ * Collects console output produced by the current thread so that it can be
+ * written out as one block when the unit of work is done. This is used when
+ * project configs are synced in parallel so that output from different
+ * projects does not interleave in the build log.
+ */
+public final class LogGroup implements AutoCloseable {
+    private static final ThreadLocal<LogGroup> CURRENT = new ThreadLocal<>();
+
+    private final String title;
+    private final Map<Sink, StringBuilder> buffers = new LinkedHashMap<>();
+
+    /**
+     * Something that can write a group of buffered output in one go (e.g. a
+     * log handler writing to the build console).
+     */
+    public interface Sink {
+        void writeGroup(String title, String text);
+    }
+
+    private LogGroup(String title) {
+        this.title = title;
+    }
+
+    /**
+     * Starts buffering output for current thread until the returned group is
+     * closed.
+     *
+     * @param title
+     *         heading printed before the buffered output
+     * @return the group for current thread
+     */
+    public static LogGroup begin(String title) {
+        LogGroup group = new LogGroup(title);
+        CURRENT.set(group);
+        return group;
+    }
+
+    /**
+     * @return the group active on current thread or null if output should be
+     * written out straight away
+     */
+    public static @CheckForNull LogGroup current() {
+        return CURRENT.get();
+    }
+
+    public void append(Sink sink, String text) {
+        buffers.computeIfAbsent(sink, s -> new StringBuilder()).append(text);
+    }
+
+    @Override
+    public void close() {
+        CURRENT.remove();
+        buffers.forEach((sink, text) -> sink.writeGroup(title, text.toString()));
+        buffers.clear();
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright 2017, Red Hat, Inc. and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jenkinsci.plugins.zanata.cli.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.ErrorManager;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+import java.util.logging.SimpleFormatter;
+
+import javax.annotation.CheckForNull;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Routes Zanata client log records to the build that produced them.
+ * <p>
+ * One handler is installed on the "org.zanata" logger per JVM. A sync opens
+ * a {@link Route} to its console for the current thread (and passes it on to
+ * its worker threads with {@link #propagate(Runnable)}); records logged on
+ * threads without a route are not written to any console, so concurrent
+ * syncs don't see each other's output.
+ * <p>
+ * A route buffers output and writes it out when enough has been collected,
+ * a while has passed since the last write, or the route is flushed or
+ * closed. While a route is open a timer also flushes it every
+ * {@code flushMillis}, so output is not held back when the client goes
+ * quiet. This saves a remote write and flush for every line when the
+ * console is on the other end of a remoting channel.
+ */
+public final class LogRouter extends Handler {
+    private static final String ZANATA_LOGGER = "org.zanata";
+    private static final int FLUSH_CHARS = Integer.getInteger(
+            LogRouter.class.getName() + ".flushChars", 8192);
+    private static final long FLUSH_MILLIS = Long.getLong(
+            LogRouter.class.getName() + ".flushMillis", 1000);
+
+    private static final ThreadLocal<Route> CURRENT = new ThreadLocal<>();
+    // strong reference so that the logger and its handler are not lost
+    private static Logger zanataLogger;
+    private static LogRouter router;
+    private static ScheduledExecutorService flusher;
+
+    private LogRouter() {
+        setLevel(Level.INFO);
+        setFormatter(new SimpleFormatter());
+    }
+
+    /**
+     * Installs the handler if it's not installed yet in this JVM.
+     */
+    private static synchronized void install() {
+        if (zanataLogger == null) {
+            router = new LogRouter();
+            flusher = Executors.newSingleThreadScheduledExecutor(
+                    new ThreadFactoryBuilder().setDaemon(true)
+                            .setNameFormat("zanata-log-flusher").build());
+            zanataLogger = Logger.getLogger(ZANATA_LOGGER);
+            zanataLogger.addHandler(router);
+        }
+    }
+
+    /**
+     * Routes log records of current thread to the given output until the
+     * returned route is closed.
+     */
+    public static Route open(OutputStream out) {
+        install();
+        Route route = new Route(out, CURRENT.get());
+        // so that output doesn't wait for the next record to come along
+        route.scheduledFlush = flusher.scheduleWithFixedDelay(route::flush,
+                FLUSH_MILLIS, FLUSH_MILLIS, TimeUnit.MILLISECONDS);
+        CURRENT.set(route);
+        return route;
+    }
+
+    /**
+     * @return the route of current thread, or null
+     */
+    @CheckForNull
+    public static Route current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * @return a task which logs to the route of current thread, no matter
+     * which thread it runs on
+     */
+    public static Runnable propagate(Runnable task) {
+        Route route = CURRENT.get();
+        if (route == null) {
+            return task;
+        }
+        return () -> {
+            Route previous = CURRENT.get();
+            CURRENT.set(route);
+            try {
+                task.run();
+            } finally {
+                if (previous == null) {
+                    CURRENT.remove();
+                } else {
+                    CURRENT.set(previous);
+                }
+            }
+        };
+    }
+
+    @Override
+    public void publish(LogRecord record) {
+        Route route = CURRENT.get();
+        if (route == null || !isLoggable(record)) {
+            return;
+        }
+        String text;
+        try {
+            text = getFormatter().format(record);
+        } catch (RuntimeException e) {
+            reportError(null, e, ErrorManager.FORMAT_FAILURE);
+            return;
+        }
+        LogGroup group = LogGroup.current();
+        if (group != null) {
+            group.append(route, text);
+        } else {
+            route.write(text);
+        }
+    }
+
+    @Override
+    public void flush() {
+        Route route = CURRENT.get();
+        if (route != null) {
+            route.flush();
+        }
+    }
+
+    @Override
+    public void close() {
+        // routes are closed by their owner
+    }
+
+    /**
+     * Buffered output of one sync.
+     */
+    public static final class Route implements AutoCloseable, LogGroup.Sink {
+        private final OutputStream out;
+        private final Route previous;
+        private final Thread owner = Thread.currentThread();
+        private final StringBuilder buffer = new StringBuilder();
+        private long lastWrite = System.currentTimeMillis();
+        private volatile ScheduledFuture<?> scheduledFlush;
+
+        private Route(OutputStream out, @CheckForNull Route previous) {
+            this.out = out;
+            this.previous = previous;
+        }
+
+        synchronized void write(String text) {
+            buffer.append(text);
+            if (buffer.length() >= FLUSH_CHARS || System.currentTimeMillis()
+                    - lastWrite >= FLUSH_MILLIS) {
+                flush();
+            }
+        }
+
+        /**
+         * Writes output buffered by a {@link LogGroup} in one block so that
+         * it won't interleave with output from other threads.
+         */
+        @Override
+        public synchronized void writeGroup(String title, String text) {
+            buffer.append(String.format("---- %s ----%n%s", title, text));
+            flush();
+        }
+
+        /**
+         * Writes out what's buffered, e.g. before writing something to the
+         * console directly.
+         */
+        public synchronized void flush() {
+            lastWrite = System.currentTimeMillis();
+            if (buffer.length() == 0) {
+                return;
+            }
+            try {
+                out.write(buffer.toString()
+                        .getBytes(Charset.defaultCharset()));
+                out.flush();
+            } catch (IOException e) {
+                router.reportError(null, e, ErrorManager.WRITE_FAILURE);
+            } finally {
+                buffer.setLength(0);
+            }
+        }
+
+        @Override
+        public void close() {
+            ScheduledFuture<?> scheduled = scheduledFlush;
+            if (scheduled != null) {
+                scheduled.cancel(false);
+            }
+            flush();
+            if (Thread.currentThread() == owner) {
+                if (previous == null) {
+                    CURRENT.remove();
+                } else {
+                    CURRENT.set(previous);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,271 @@
+/*
+ * Copyright 2017, Red Hat, Inc. and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jenkinsci.plugins.zanata.cli.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.FileVisitor;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+import javax.annotation.CheckForNull;
+
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.jenkinsci.plugins.zanata.exception.ZanataSyncException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Splitter;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Finds project configs (zanata.xml) in a source repo.
+ * <p>
+ * Directories matching one of the excludes (e.g. .git or node_modules) are
+ * not walked into at all. Excludes are glob patterns matched against the
+ * directory name, or against the path relative to the repo base if the
+ * pattern contains a '/'. They can be changed by system property
+ * {@code org.jenkinsci.plugins.zanata.cli.util.ProjectConfigFinder.excludes}
+ * (comma separated) and the depth by
+ * {@code org.jenkinsci.plugins.zanata.cli.util.ProjectConfigFinder.maxDepth}.
+ * <p>
+ * If the repo base is a git work tree, the result is cached against its HEAD
+ * commit so that the same checkout is only walked once (e.g. for both push
+ * and pull of a build). A project config which is not committed yet is not
+ * seen until HEAD moves.
+ */
+public final class ProjectConfigFinder implements Serializable {
+    private static final Logger log =
+            LoggerFactory.getLogger(ProjectConfigFinder.class);
+    private static final long serialVersionUID = 1L;
+
+    public static final String PROJECT_CONFIG = "zanata.xml";
+    public static final String DEFAULT_EXCLUDES =
+            ".git,.svn,.hg,.zanata-cache,node_modules,bower_components,target";
+    public static final int DEFAULT_MAX_DEPTH = PushPullOptionsUtil.MAX_DEPTH;
+
+    private static final Cache<CacheKey, Set<File>> FOUND =
+            CacheBuilder.newBuilder().maximumSize(64).build();
+
+    private final List<String> excludes;
+    private final int maxDepth;
+    private transient List<PathMatcher> nameMatchers;
+    private transient List<PathMatcher> pathMatchers;
+
+    public ProjectConfigFinder(Iterable<String> excludes, int maxDepth) {
+        this.excludes = ImmutableList.copyOf(excludes);
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * @return finder using excludes and depth from system properties, or the
+     *         defaults
+     */
+    public static ProjectConfigFinder fromSystemProperties() {
+        String prefix = ProjectConfigFinder.class.getName();
+        String excludes =
+                System.getProperty(prefix + ".excludes", DEFAULT_EXCLUDES);
+        return new ProjectConfigFinder(
+                Splitter.on(',').trimResults().omitEmptyStrings()
+                        .split(excludes),
+                Integer.getInteger(prefix + ".maxDepth", DEFAULT_MAX_DEPTH));
+    }
+
+    public List<String> getExcludes() {
+        return excludes;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * @param repoBase
+     *         base path of a source repo.
+     * @return absolute paths for all the project configs found under repoBase
+     */
+    public Set<File> find(File repoBase) {
+        Path base = repoBase.toPath().toAbsolutePath().normalize();
+        String revision = revisionOf(base);
+        if (revision == null) {
+            return walk(base);
+        }
+        CacheKey key = new CacheKey(base, revision, this);
+        Set<File> found = FOUND.getIfPresent(key);
+        if (found != null && found.stream().allMatch(File::isFile)) {
+            log.debug("project configs of {} at {} are cached", base,
+                    revision);
+            return found;
+        }
+        found = walk(base);
+        FOUND.put(key, found);
+        return found;
+    }
+
+    @VisibleForTesting
+    Set<File> walk(Path base) {
+        Set<File> found = new HashSet<>();
+        FileVisitor<Path> visitor = new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir,
+                    BasicFileAttributes attrs) {
+                if (!dir.equals(base) && isExcluded(base.relativize(dir))) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file,
+                    BasicFileAttributes attrs) {
+                if (attrs.isRegularFile() && file.getFileName().toString()
+                        .equals(PROJECT_CONFIG)) {
+                    found.add(file.toFile());
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                // e.g. a broken symlink or a folder we can't read
+                log.debug("can not read {}: {}", file, e.getMessage());
+                return FileVisitResult.CONTINUE;
+            }
+        };
+        try {
+            Files.walkFileTree(base, Collections.emptySet(), maxDepth,
+                    visitor);
+        } catch (IOException e) {
+            throw new ZanataSyncException("Failed finding project config", e);
+        }
+        return ImmutableSet.copyOf(found);
+    }
+
+    private boolean isExcluded(Path relativeDir) {
+        if (nameMatchers == null) {
+            List<PathMatcher> names = new ArrayList<>();
+            List<PathMatcher> paths = new ArrayList<>();
+            for (String exclude : excludes) {
+                PathMatcher matcher = FileSystems.getDefault()
+                        .getPathMatcher("glob:" + exclude);
+                (exclude.contains("/") ? paths : names).add(matcher);
+            }
+            pathMatchers = paths;
+            nameMatchers = names;
+        }
+        Path name = relativeDir.getFileName();
+        return nameMatchers.stream().anyMatch(m -> m.matches(name))
+                || pathMatchers.stream().anyMatch(m -> m.matches(relativeDir));
+    }
+
+    /**
+     * @return HEAD commit id if repoBase is a git work tree, or null
+     */
+    @VisibleForTesting
+    @CheckForNull
+    static String revisionOf(Path repoBase) {
+        if (!Files.exists(repoBase.resolve(Constants.DOT_GIT))) {
+            return null;
+        }
+        try (Repository repo = new FileRepositoryBuilder()
+                .setWorkTree(repoBase.toFile()).setMustExist(true).build()) {
+            ObjectId head = repo.resolve(Constants.HEAD);
+            return head == null ? null : head.name();
+        } catch (IOException | RuntimeException e) {
+            log.debug("can not resolve HEAD of {}: {}", repoBase,
+                    e.getMessage());
+            return null;
+        }
+    }
+
+    @VisibleForTesting
+    static void clearCache() {
+        FOUND.invalidateAll();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        ProjectConfigFinder that = (ProjectConfigFinder) o;
+        return maxDepth == that.maxDepth && excludes.equals(that.excludes);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(excludes, maxDepth);
+    }
+
+    private static final class CacheKey {
+        private final Path repoBase;
+        private final String revision;
+        private final ProjectConfigFinder finder;
+
+        private CacheKey(Path repoBase, String revision,
+                ProjectConfigFinder finder) {
+            this.repoBase = repoBase;
+            this.revision = revision;
+            this.finder = finder;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            CacheKey that = (CacheKey) o;
+            return repoBase.equals(that.repoBase)
+                    && revision.equals(that.revision)
+                    && finder.equals(that.finder);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(repoBase, revision, finder);
+        }
+    }
+}
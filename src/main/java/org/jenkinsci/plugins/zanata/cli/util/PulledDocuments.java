@@ -0,0 +1,153 @@
+/*
+ * Copyright 2017, Red Hat, Inc. and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jenkinsci.plugins.zanata.cli.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.stream.Stream;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.zanata.client.commands.PushPullOptions;
+
+/**
+ * Remembers content hashes of the translation files as of the last pull
+ * which used a pull cache, next to the cache. Pull only downloads what
+ * changed on Zanata since the ETags in the cache, so if a file no longer
+ * matches what was pulled (e.g. the workspace was wiped or the checkout
+ * reset while the cache lives on the node), the cache must be dropped.
+ */
+public final class PulledDocuments {
+    private static final Logger log =
+            LoggerFactory.getLogger(PulledDocuments.class);
+    static final String STATE_FILE = "jenkins-pulled-documents.properties";
+
+    private PulledDocuments() {
+    }
+
+    /**
+     * Empties the cache dir unless the translation files still match what
+     * was recorded by the last pull.
+     *
+     * @param options
+     *         pull options after applying the project config
+     */
+    public static void dropCacheIfStale(Path cacheDir,
+            PushPullOptions options) {
+        Path stateFile = cacheDir.resolve(STATE_FILE);
+        if (!Files.isDirectory(cacheDir) || isUpToDate(stateFile, options)) {
+            return;
+        }
+        log.info("translation files differ from last pull. Dropping {}",
+                cacheDir);
+        try {
+            Files.walkFileTree(cacheDir, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(Path file,
+                        BasicFileAttributes attrs) throws IOException {
+                    Files.delete(file);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult postVisitDirectory(Path dir,
+                        IOException e) throws IOException {
+                    if (!dir.equals(cacheDir)) {
+                        Files.delete(dir);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(
+                    "failed dropping pull cache " + cacheDir, e);
+        }
+    }
+
+    private static boolean isUpToDate(Path stateFile,
+            PushPullOptions options) {
+        if (!Files.isRegularFile(stateFile)) {
+            // nothing pulled with this cache yet
+            return !hasCacheEntries(stateFile.getParent());
+        }
+        Properties recorded = new Properties();
+        try (InputStream in = Files.newInputStream(stateFile)) {
+            recorded.load(in);
+        } catch (IOException e) {
+            log.warn("can not read {}", stateFile, e);
+            return false;
+        }
+        return recorded.equals(hash(options));
+    }
+
+    private static boolean hasCacheEntries(Path cacheDir) {
+        try (Stream<Path> entries = Files.list(cacheDir)) {
+            return entries.findAny().isPresent();
+        } catch (IOException e) {
+            return true;
+        }
+    }
+
+    /**
+     * Records the translation files as they are right after a pull.
+     *
+     * @param options
+     *         pull options after applying the project config
+     */
+    public static void record(Path cacheDir, PushPullOptions options) {
+        Path stateFile = cacheDir.resolve(STATE_FILE);
+        try (OutputStream out = Files.newOutputStream(stateFile)) {
+            hash(options).store(out, "translation files as of last pull");
+        } catch (IOException e) {
+            log.warn("failed saving {}", stateFile, e);
+        }
+    }
+
+    private static Properties hash(PushPullOptions options) {
+        Path transDir = options.getTransDir().toPath().normalize();
+        Properties hashes = new Properties();
+        try {
+            DocumentFilter.of(options).forEachDocument(transDir,
+                    (file, attrs) -> {
+                        try (InputStream in = Files.newInputStream(file)) {
+                            hashes.setProperty(Objects.toString(
+                                    transDir.relativize(file)),
+                                    DigestUtils.sha1Hex(in));
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("can not hash translation files in {}", transDir, e);
+        }
+        return hashes;
+    }
+}
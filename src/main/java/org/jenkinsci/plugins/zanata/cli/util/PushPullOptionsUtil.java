@@ -21,19 +21,15 @@
 package org.jenkinsci.plugins.zanata.cli.util;
 
 import java.io.File;
-import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.nio.file.Files;
-import java.nio.file.Path;
 import java.util.Optional;
 import java.util.Set;
 import java.util.function.Consumer;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import javax.xml.bind.JAXBException;
 
+import org.jboss.resteasy.client.jaxrs.ClientHttpEngine;
 import org.jboss.resteasy.client.jaxrs.ResteasyClientBuilder;
 import org.jboss.resteasy.plugins.interceptors.CacheControlFeature;
 import org.jboss.resteasy.plugins.interceptors.encoding.AcceptEncodingGZIPFilter;
@@ -123,6 +119,9 @@ public final class PushPullOptionsUtil {
                 .register(ServerContentEncodingAnnotationFeature.class);
     };
 
+    private static final RestClientFactoryCache restClientFactoryCache =
+            new RestClientFactoryCache(PushPullOptionsUtil::newRestClientFactory);
+
     /**
      * You typically call this after clone the source repo and before doing a
      * push to or pull from Zanata
@@ -137,6 +136,19 @@ public final class PushPullOptionsUtil {
      */
     public static <O extends PushPullOptions> O applyProjectConfig(O options,
             File projectConfig) {
+        return applyProjectConfig(options, projectConfig,
+                LocaleListCache.forSync());
+    }
+
+    /**
+     * Same as {@link #applyProjectConfig(PushPullOptions, File)} but locales
+     * fetched from server are looked up in (and stored to) the given cache.
+     *
+     * @param localeListCache
+     *         cache shared by all project configs of a sync
+     */
+    public static <O extends PushPullOptions> O applyProjectConfig(O options,
+            File projectConfig, LocaleListCache localeListCache) {
         options.setProjectConfig(projectConfig);
 
         try {
@@ -146,9 +158,13 @@ public final class PushPullOptionsUtil {
             if (OptionsUtil
                     .shouldFetchLocalesFromServer(zanataConfig, options)) {
                 log.debug("fetching locales from server");
-                LocaleList localeMappings = OptionsUtil
-                        .fetchLocalesFromServer(options,
-                                makeRestClientFactory(options));
+                LocaleList localeMappings = localeListCache.get(options, () -> {
+                    try (RestClientFactoryCache.Lease lease =
+                            leaseRestClientFactory(options)) {
+                        return OptionsUtil.fetchLocalesFromServer(options,
+                                lease.getFactory());
+                    }
+                });
                 options.setLocaleMapList(localeMappings);
             }
         } catch (JAXBException e) {
@@ -173,17 +189,40 @@ public final class PushPullOptionsUtil {
         return options;
     }
 
-    private static <O extends PushPullOptions> RestClientFactory makeRestClientFactory(
-            O options) {
+    private static RestClientFactory newRestClientFactory(
+            PushPullOptions options, ClientHttpEngine httpEngine) {
         // FIXME the version info is not resolved properly
         return new RestClientFactory(getUri(options), options.getUsername(),
                         options.getKey(),
                         new VersionInfo("unknown", "unknown", "unknown"),
                         options.getLogHttp(), options.isDisableSSLCert(),
-                        resteasyClientBuilderConsumer);
+                        resteasyClientBuilderConsumer
+                                .andThen(builder -> builder.httpEngine(httpEngine)));
+    }
+
+    /**
+     * Gets a RestClientFactory for the server and credentials in the options.
+     * Factories (and their pooled connections) are shared between project
+     * configs and are returned to the cache once the lease is closed.
+     *
+     * @param options
+     *         push or pull options
+     * @return a lease which must be closed once the factory is not used
+     */
+    public static RestClientFactoryCache.Lease leaseRestClientFactory(
+            PushPullOptions options) {
+        return restClientFactoryCache.acquire(options);
+    }
+
+    /**
+     * Closes all cached RestClientFactory that are not in use. Call this when
+     * a sync is finished.
+     */
+    public static void closeUnusedRestClientFactories() {
+        restClientFactoryCache.closeUnused();
     }
 
-    private static <O extends PushPullOptions> URI getUri(O options) {
+    static <O extends PushPullOptions> URI getUri(O options) {
         try {
             return options.getUrl().toURI();
         } catch (URISyntaxException e) {
@@ -195,30 +234,20 @@ public final class PushPullOptionsUtil {
      * @param repoBase
      *         base path of a source repo.
      * @return absolute paths for all the project configs found under repoBase
+     * @see ProjectConfigFinder
      */
     public static Set<File> findProjectConfigs(File repoBase) {
-        try {
-            Stream<Path> pathStream = Files.find(repoBase.toPath(), MAX_DEPTH,
-                    (path, basicFileAttributes) ->
-                            basicFileAttributes.isRegularFile() &&
-                                    path.toFile().getName()
-                                            .equals("zanata.xml"));
-            return pathStream.map(Path::toFile).collect(Collectors.toSet());
-        } catch (IOException e) {
-            throw new ZanataSyncException("Failed finding project config", e);
-        }
+        return ProjectConfigFinder.fromSystemProperties().find(repoBase);
     }
 
-    public static PushCommand makePushCommand(PushOptions pushOptions) {
-        RestClientFactory factory =
-                makeRestClientFactory(pushOptions);
+    public static PushCommand makePushCommand(PushOptions pushOptions,
+            RestClientFactory factory) {
         return new PushCommand(pushOptions, factory.getCopyTransClient(),
                 factory.getAsyncProcessClient(), factory);
     }
 
-    public static PullCommand makePullCommand(PullOptions pullOptions) {
-        RestClientFactory factory =
-                makeRestClientFactory(pullOptions);
+    public static PullCommand makePullCommand(PullOptions pullOptions,
+            RestClientFactory factory) {
         return new PullCommand(pullOptions, factory);
     }
 }
@@ -0,0 +1,255 @@
+/*
+ * Copyright 2017, Red Hat, Inc. and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jenkinsci.plugins.zanata.cli.util;
+
+import java.net.URI;
+import java.security.GeneralSecurityException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Predicate;
+
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.NoopHostnameVerifier;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.ssl.SSLContexts;
+import org.apache.http.ssl.TrustStrategy;
+import org.jboss.resteasy.client.jaxrs.ClientHttpEngine;
+import org.jboss.resteasy.client.jaxrs.engines.ApacheHttpClient4Engine;
+import org.jenkinsci.plugins.zanata.exception.ZanataSyncException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.zanata.client.commands.PushPullOptions;
+import org.zanata.rest.client.RestClientFactory;
+
+import com.google.common.annotations.VisibleForTesting;
+
+/**
+ * Shares {@link RestClientFactory} instances (and their pooled HTTP
+ * connections) between push, pull and locale fetching of project configs that
+ * talk to the same Zanata server with the same credentials.
+ * <p>
+ * A factory is handed out as a {@link Lease}. Factories that are not leased
+ * are closed once they have been idle for longer than the idle timeout, or
+ * when {@link #closeUnused()} is called at the end of a sync.
+ */
+public final class RestClientFactoryCache {
+    private static final Logger log =
+            LoggerFactory.getLogger(RestClientFactoryCache.class);
+    private static final long IDLE_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(
+            Long.getLong(RestClientFactoryCache.class.getName()
+                    + ".idleTimeoutSeconds", 300));
+    private static final int MAX_CONNECTIONS = Integer.getInteger(
+            RestClientFactoryCache.class.getName() + ".maxConnections", 20);
+
+    private final BiFunction<PushPullOptions, ClientHttpEngine, RestClientFactory>
+            factoryCreator;
+    private final long idleTimeoutMillis;
+    private final int maxConnections;
+    // guarded by this
+    private final Map<Key, Entry> entries = new HashMap<>();
+
+    /**
+     * @param factoryCreator
+     *         creates a new factory for the given options using the given
+     *         (pooled) http engine
+     */
+    public RestClientFactoryCache(
+            BiFunction<PushPullOptions, ClientHttpEngine, RestClientFactory> factoryCreator) {
+        this(factoryCreator, IDLE_TIMEOUT_MILLIS, MAX_CONNECTIONS);
+    }
+
+    @VisibleForTesting
+    RestClientFactoryCache(
+            BiFunction<PushPullOptions, ClientHttpEngine, RestClientFactory> factoryCreator,
+            long idleTimeoutMillis, int maxConnections) {
+        this.factoryCreator = factoryCreator;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.maxConnections = maxConnections;
+    }
+
+    /**
+     * @param options
+     *         push or pull options with server URL and credentials resolved
+     * @return a lease of a (possibly shared) factory. Caller must close it
+     * once the factory is no longer used.
+     */
+    public synchronized Lease acquire(PushPullOptions options) {
+        evictIdle();
+        Key key = new Key(options);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            log.debug("creating rest client factory for {}", key.uri);
+            ClientHttpEngine engine = createEngine(options.isDisableSSLCert());
+            entry = new Entry(factoryCreator.apply(options, engine), engine);
+            entries.put(key, entry);
+        }
+        entry.users++;
+        return new Lease(entry);
+    }
+
+    private synchronized void release(Entry entry) {
+        entry.users--;
+        entry.lastUsed = System.currentTimeMillis();
+    }
+
+    /**
+     * Closes all factories that are not leased at the moment.
+     */
+    public synchronized void closeUnused() {
+        closeIf(entry -> entry.users <= 0);
+    }
+
+    private void evictIdle() {
+        long now = System.currentTimeMillis();
+        closeIf(entry -> entry.users <= 0
+                && now - entry.lastUsed >= idleTimeoutMillis);
+    }
+
+    private void closeIf(Predicate<Entry> predicate) {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (predicate.test(entry)) {
+                iterator.remove();
+                try {
+                    entry.engine.close();
+                } catch (RuntimeException e) {
+                    log.warn("error closing http engine", e);
+                }
+            }
+        }
+    }
+
+    @VisibleForTesting
+    synchronized int size() {
+        return entries.size();
+    }
+
+    private ClientHttpEngine createEngine(boolean disableSSLCert) {
+        ConnectionSocketFactory https =
+                SSLConnectionSocketFactory.getSocketFactory();
+        if (disableSSLCert) {
+            try {
+                https = new SSLConnectionSocketFactory(SSLContexts.custom()
+                        .loadTrustMaterial(
+                                (TrustStrategy) (chain, authType) -> true)
+                        .build(), NoopHostnameVerifier.INSTANCE);
+            } catch (GeneralSecurityException e) {
+                throw new ZanataSyncException(
+                        "failed to disable SSL certificate check", e);
+            }
+        }
+        PoolingHttpClientConnectionManager connectionManager =
+                new PoolingHttpClientConnectionManager(
+                        RegistryBuilder.<ConnectionSocketFactory>create()
+                                .register("http", PlainConnectionSocketFactory
+                                        .getSocketFactory())
+                                .register("https", https).build(),
+                        null, null, null, idleTimeoutMillis,
+                        TimeUnit.MILLISECONDS);
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnections);
+        return new ApacheHttpClient4Engine(HttpClientBuilder.create()
+                .setConnectionManager(connectionManager).build(), true);
+    }
+
+    /**
+     * A factory handed out by the cache. Close it to return it to the cache.
+     */
+    public final class Lease implements AutoCloseable {
+        private final Entry entry;
+        private boolean closed;
+
+        private Lease(Entry entry) {
+            this.entry = entry;
+        }
+
+        public RestClientFactory getFactory() {
+            return entry.factory;
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                release(entry);
+            }
+        }
+    }
+
+    private static final class Entry {
+        private final RestClientFactory factory;
+        private final ClientHttpEngine engine;
+        private int users;
+        private long lastUsed = System.currentTimeMillis();
+
+        private Entry(RestClientFactory factory, ClientHttpEngine engine) {
+            this.factory = factory;
+            this.engine = engine;
+        }
+    }
+
+    private static final class Key {
+        private final URI uri;
+        private final String username;
+        private final String apiKey;
+        private final boolean logHttp;
+        private final boolean disableSSLCert;
+
+        private Key(PushPullOptions options) {
+            uri = PushPullOptionsUtil.getUri(options);
+            username = options.getUsername();
+            apiKey = options.getKey();
+            logHttp = options.getLogHttp();
+            disableSSLCert = options.isDisableSSLCert();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return logHttp == key.logHttp &&
+                    disableSSLCert == key.disableSSLCert &&
+                    Objects.equals(uri, key.uri) &&
+                    Objects.equals(username, key.username) &&
+                    Objects.equals(apiKey, key.apiKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(uri, username, apiKey, logHttp,
+                    disableSSLCert);
+        }
+    }
+}
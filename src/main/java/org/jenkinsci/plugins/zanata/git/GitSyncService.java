@@ -24,22 +24,44 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.Base64;
+import java.util.Collection;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.logging.Level;
 
+import javax.annotation.CheckForNull;
+
+import org.eclipse.jgit.api.AddCommand;
+import org.eclipse.jgit.api.RebaseCommand;
+import org.eclipse.jgit.api.RebaseResult;
 import org.eclipse.jgit.api.Status;
 import org.eclipse.jgit.api.StatusCommand;
 import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.transport.CredentialsProvider;
+import org.eclipse.jgit.transport.PushResult;
+import org.eclipse.jgit.transport.RefSpec;
+import org.eclipse.jgit.transport.RemoteRefUpdate;
+import org.eclipse.jgit.transport.TagOpt;
 import org.jenkinsci.plugins.gitclient.Git;
 import org.jenkinsci.plugins.gitclient.GitClient;
 import org.jenkinsci.plugins.gitclient.RepositoryCallback;
+import org.jenkinsci.plugins.gitclient.trilead.SmartCredentialsProvider;
 import org.jenkinsci.plugins.zanata.cli.HasSyncJobDetail;
 import org.jenkinsci.plugins.zanata.exception.RepoSyncException;
 import org.jenkinsci.remoting.RoleChecker;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.cloudbees.plugins.credentials.common.StandardUsernameCredentials;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Strings;
+
 import hudson.FilePath;
 import hudson.remoting.VirtualChannel;
+import hudson.util.LogTaskListener;
 
 /**
  * Note JGIT doesn't support shallow clone yet. But jenkins has an abstraction
@@ -53,16 +75,102 @@ public class GitSyncService implements RepoSyncService {
             LoggerFactory.getLogger(GitSyncService.class);
     private final HasSyncJobDetail syncJobDetail;
     private final org.jenkinsci.plugins.gitclient.Git git;
+    @CheckForNull
+    private final StandardUsernameCredentials pushCredentials;
+
+    /**
+     * How many times to try pushing translation commit when the remote
+     * branch keeps moving.
+     */
+    public static final int PUSH_ATTEMPTS = Integer.getInteger(
+            GitSyncService.class.getName() + ".pushAttempts", 5);
+    private static final long PUSH_BACKOFF_MILLIS = Long.getLong(
+            GitSyncService.class.getName() + ".pushBackoffMillis", 1000);
 
 
     public GitSyncService(HasSyncJobDetail jobDetail, Git git) {
+        this(jobDetail, git, null);
+    }
+
+    /**
+     * @param pushCredentials
+     *         credentials to push and fetch the translation commit with
+     *         (username/password or SSH key), or null to rely on what's
+     *         available on the node
+     */
+    public GitSyncService(HasSyncJobDetail jobDetail, Git git,
+            @CheckForNull StandardUsernameCredentials pushCredentials) {
         this.syncJobDetail = jobDetail;
         this.git = git;
+        this.pushCredentials = pushCredentials;
+    }
+
+    /**
+     * @param path
+     *         path relative to the git work tree
+     * @return whether the path is inside a zanata cache folder (e.g. pull
+     *         cache), which should never be committed
+     */
+    static boolean isZanataCache(String path) {
+        return path.startsWith(".zanata-cache/")
+                || path.contains("/.zanata-cache/");
+    }
+
+    /**
+     * Stages all the given files with one index update (adding files one by
+     * one rewrites the index for each of them).
+     *
+     * @param paths
+     *         paths relative to the git work tree
+     */
+    static void stage(org.eclipse.jgit.api.Git jgit, Collection<String> paths)
+            throws GitAPIException {
+        AddCommand add = jgit.add();
+        paths.forEach(add::addFilepattern);
+        add.call();
     }
 
     @Override
     public boolean syncTranslationToRepo(Path workingDir) {
+        return commitChanges(workingDir, null);
+    }
+
+    @Override
+    public boolean syncTranslationToRepo(Path workingDir,
+            Collection<Path> dirs) {
+        if (dirs.isEmpty()) {
+            log.info("nothing was pulled so nothing to do");
+            return false;
+        }
+        Path workTree = workingDir.toAbsolutePath().normalize();
+        Set<String> paths = new TreeSet<>();
+        for (Path dir : dirs) {
+            Path absDir = dir.toAbsolutePath().normalize();
+            if (absDir.equals(workTree)) {
+                // translations are in work tree root so look at everything
+                return commitChanges(workingDir, null);
+            }
+            if (!absDir.startsWith(workTree)) {
+                log.warn("{} is not in git work tree {}. Skip.", dir,
+                        workTree);
+                continue;
+            }
+            paths.add(workTree.relativize(absDir).toString()
+                    .replace(File.separatorChar, '/'));
+        }
+        if (paths.isEmpty()) {
+            return false;
+        }
+        return commitChanges(workingDir, paths);
+    }
 
+    /**
+     * @param paths
+     *         work tree relative paths to look for changes in, or null for the
+     *         whole work tree
+     */
+    private boolean commitChanges(Path workingDir,
+            @CheckForNull Set<String> paths) {
         try {
             GitClient gitClient =
                     git.in(workingDir.toFile()).using("jgit").getClient();
@@ -85,39 +193,32 @@ public class GitSyncService implements RepoSyncService {
                         throws IOException, InterruptedException {
                     try (org.eclipse.jgit.api.Git jgit = org.eclipse.jgit.api.Git.open(f)) {
                         StatusCommand statusCommand = jgit.status();
+                        if (paths != null) {
+                            // status won't hash files outside of these
+                            paths.forEach(statusCommand::addPath);
+                        }
                         Status status = statusCommand.call();
                         Set<String> uncommittedChanges = status.getUncommittedChanges();
                         uncommittedChanges.addAll(status.getUntracked());
+                        // ignore zanata cache folder
+                        uncommittedChanges.removeIf(GitSyncService::isZanataCache);
                         if (!uncommittedChanges.isEmpty()) {
                             log.info("uncommitted files in git repo: {}",
                                     uncommittedChanges);
-                            // ignore zanata cache folder
-                            uncommittedChanges.stream()
-                                    .filter(file -> !file.startsWith(".zanata-cache/"))
-                                    .forEach(file -> {
-                                        try {
-                                            gitClient.add(file);
-                                        } catch (InterruptedException e) {
-                                            throw new RepoSyncException("interrupted", e);
-                                        }
-                                    });
+                            stage(jgit, uncommittedChanges);
 
                             log.info("commit changed files");
                             gitClient.setAuthor(commitAuthorName(),
                                     commitAuthorEmail());
                             gitClient.setCommitter(commitAuthorName(), commitAuthorEmail());
                             gitClient.commit(commitMessage(syncJobDetail.getZanataUsername()));
-
-//                            log.info("push to remote the commit: {}");
-//                            gitClient.push();
-                        } else {
-                            log.info("nothing changed so nothing to do");
+                            return true;
                         }
+                        log.info("nothing changed so nothing to do");
+                        return false;
                     } catch (GitAPIException | InterruptedException gitException) {
                         throw new RepoSyncException("error committing", gitException);
                     }
-
-                    return true;
                 }
 
                 @Override
@@ -134,4 +235,126 @@ public class GitSyncService implements RepoSyncService {
 
     }
 
+    @Override
+    public void pushTranslationCommit(Path workingDir,
+            @CheckForNull String branch) {
+        String remote = Constants.DEFAULT_REMOTE_NAME;
+        try (org.eclipse.jgit.api.Git jgit =
+                org.eclipse.jgit.api.Git.open(workingDir.toFile())) {
+            String targetBranch = branch;
+            if (Strings.isNullOrEmpty(targetBranch)) {
+                String fullBranch = jgit.getRepository().getFullBranch();
+                if (fullBranch == null
+                        || !fullBranch.startsWith(Constants.R_HEADS)) {
+                    throw new RepoSyncException(
+                            "HEAD is detached. Don't know which branch to push translation commit to");
+                }
+                targetBranch = Repository.shortenRefName(fullBranch);
+            }
+            CredentialsProvider credentials =
+                    credentialsProvider(workingDir);
+            String remoteRef = Constants.R_HEADS + targetBranch;
+            String trackingRef =
+                    Constants.R_REMOTES + remote + "/" + targetBranch;
+            for (int attempt = 1; ; attempt++) {
+                RemoteRefUpdate.Status status =
+                        push(jgit, credentials, remote, remoteRef);
+                if (status == RemoteRefUpdate.Status.OK
+                        || status == RemoteRefUpdate.Status.UP_TO_DATE) {
+                    log.info("pushed translation commit to {} {}", remote,
+                            targetBranch);
+                    return;
+                }
+                if (status != RemoteRefUpdate.Status.REJECTED_NONFASTFORWARD
+                        && status != RemoteRefUpdate.Status.REJECTED_REMOTE_CHANGED) {
+                    throw new RepoSyncException(
+                            "failed pushing translation commit to " + remote
+                                    + " " + targetBranch + ": " + status);
+                }
+                if (attempt >= PUSH_ATTEMPTS) {
+                    throw new RepoSyncException(
+                            "giving up pushing translation commit to "
+                                    + remote + " " + targetBranch + " after "
+                                    + attempt + " attempts");
+                }
+                if (attempt > 1) {
+                    // other jobs are pushing to the same branch
+                    Thread.sleep(backoffMillis(attempt));
+                }
+                log.info("{} {} has moved on. Rebase and push again",
+                        remote, targetBranch);
+                fetchAndRebase(jgit, credentials, remote, remoteRef,
+                        trackingRef);
+            }
+        } catch (IOException | GitAPIException e) {
+            throw new RepoSyncException("error pushing translation commit", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RepoSyncException("interrupted", e);
+        }
+    }
+
+    /**
+     * The git plugin doesn't write checkout credentials into the repo config,
+     * so they have to be given to JGit for every push and fetch.
+     *
+     * @return provider of the push credentials, or null if there are none
+     */
+    @CheckForNull
+    private CredentialsProvider credentialsProvider(Path workingDir)
+            throws IOException, InterruptedException {
+        if (pushCredentials == null) {
+            return null;
+        }
+        // git client's JGit implementation sets up the JGit ssh session
+        // factory which takes SSH keys from the provider
+        git.in(workingDir.toFile()).using("jgit").getClient();
+        SmartCredentialsProvider provider = new SmartCredentialsProvider(
+                new LogTaskListener(java.util.logging.Logger.getLogger(
+                        GitSyncService.class.getName()), Level.INFO));
+        provider.addDefault(pushCredentials);
+        return provider;
+    }
+
+    private static RemoteRefUpdate.Status push(org.eclipse.jgit.api.Git jgit,
+            @CheckForNull CredentialsProvider credentials, String remote,
+            String remoteRef) throws GitAPIException {
+        Iterable<PushResult> results = jgit.push().setRemote(remote)
+                .setCredentialsProvider(credentials)
+                .setRefSpecs(new RefSpec(Constants.HEAD + ":" + remoteRef))
+                .call();
+        for (PushResult result : results) {
+            RemoteRefUpdate update = result.getRemoteUpdate(remoteRef);
+            if (update != null) {
+                return update.getStatus();
+            }
+        }
+        throw new RepoSyncException("no push result for " + remoteRef);
+    }
+
+    /**
+     * Fetches only the branch we push to (no tags), then rebases the
+     * translation commit on top of it.
+     */
+    private static void fetchAndRebase(org.eclipse.jgit.api.Git jgit,
+            @CheckForNull CredentialsProvider credentials, String remote,
+            String remoteRef, String trackingRef) throws GitAPIException {
+        jgit.fetch().setRemote(remote).setCredentialsProvider(credentials)
+                .setRefSpecs(new RefSpec("+" + remoteRef + ":" + trackingRef))
+                .setTagOpt(TagOpt.NO_TAGS).call();
+        RebaseResult result = jgit.rebase().setUpstream(trackingRef).call();
+        if (!result.getStatus().isSuccessful()) {
+            jgit.rebase().setOperation(RebaseCommand.Operation.ABORT).call();
+            throw new RepoSyncException(
+                    "can not rebase translation commit onto " + trackingRef
+                            + ": " + result.getStatus());
+        }
+    }
+
+    @VisibleForTesting
+    static long backoffMillis(int attempt) {
+        long backoff = PUSH_BACKOFF_MILLIS << Math.min(attempt - 2, 10);
+        return backoff + ThreadLocalRandom.current().nextLong(backoff + 1);
+    }
+
 }
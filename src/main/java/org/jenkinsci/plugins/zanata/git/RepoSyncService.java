@@ -22,6 +22,9 @@ package org.jenkinsci.plugins.zanata.git;
 
 import java.io.Serializable;
 import java.nio.file.Path;
+import java.util.Collection;
+
+import javax.annotation.CheckForNull;
 
 import org.jenkinsci.plugins.zanata.exception.RepoSyncException;
 
@@ -36,6 +39,34 @@ public interface RepoSyncService extends Serializable {
      */
     boolean syncTranslationToRepo(Path path) throws RepoSyncException;
 
+    /**
+     * Same as {@link #syncTranslationToRepo(Path)} but only changes under the
+     * given dirs are committed.
+     *
+     * @param path
+     *            the workspace path
+     * @param dirs
+     *            absolute paths of dirs to commit (e.g. translation dirs
+     *            written by pull)
+     * @return true if the translation is commited to the SCM repo
+     * @throws RepoSyncException
+     */
+    boolean syncTranslationToRepo(Path path, Collection<Path> dirs)
+            throws RepoSyncException;
+
+    /**
+     * Pushes the translation commit to remote. If the remote branch has moved
+     * on, the commit is rebased on top of it and pushed again.
+     *
+     * @param path
+     *            the workspace path
+     * @param branch
+     *            remote branch to push to. null means current branch.
+     * @throws RepoSyncException
+     */
+    void pushTranslationCommit(Path path, @CheckForNull String branch)
+            throws RepoSyncException;
+
     default String commitAuthorName() {
         return "Zanata Sync";
     }
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2017, Red Hat, Inc. and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jenkinsci.plugins.zanata.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+import com.codahale.metrics.MetricRegistry;
+
+import hudson.Extension;
+import jenkins.metrics.api.Metrics;
+
+/**
+ * Reports to the registry of the metrics plugin. Optional so that it is
+ * simply not loaded when the metrics plugin is not installed.
+ */
+@Extension(optional = true)
+public class DropwizardMetrics extends ZanataMetrics {
+
+    private static MetricRegistry registry() {
+        return Metrics.metricRegistry();
+    }
+
+    @Override
+    public void count(String name) {
+        registry().counter(name).inc();
+    }
+
+    @Override
+    public void update(String name, long value) {
+        registry().histogram(name).update(value);
+    }
+
+    @Override
+    public void time(String name, long duration, TimeUnit unit) {
+        registry().timer(name).update(duration, unit);
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2017, Red Hat, Inc. and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jenkinsci.plugins.zanata.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jenkinsci.plugins.zanata.cli.SyncStatistics;
+
+import hudson.ExtensionList;
+import hudson.ExtensionPoint;
+import jenkins.model.Jenkins;
+
+/**
+ * Where webhook and sync metrics go. Implementations are looked up as
+ * extensions; the first one wins. When none is available (e.g. the metrics
+ * plugin is not installed, or on an agent) metrics are dropped.
+ *
+ * @see DropwizardMetrics
+ */
+public abstract class ZanataMetrics implements ExtensionPoint {
+    public static final String WEBHOOK_LATENCY = "zanata.webhook.latency";
+    public static final String WEBHOOK_ACCEPTED = "zanata.webhook.accepted";
+    public static final String WEBHOOK_REJECTED = "zanata.webhook.rejected";
+    /**
+     * Followed by HTTP status, e.g. zanata.webhook.status.403
+     */
+    public static final String WEBHOOK_STATUS = "zanata.webhook.status.";
+    public static final String BUILDS_TRIGGERED =
+            "zanata.webhook.builds.triggered";
+    public static final String PUSH_DURATION = "zanata.sync.push.duration";
+    public static final String PULL_DURATION = "zanata.sync.pull.duration";
+    public static final String PUSH_DOCUMENTS = "zanata.sync.push.documents";
+    public static final String PULL_DOCUMENTS = "zanata.sync.pull.documents";
+    public static final String PULL_BYTES = "zanata.sync.pull.bytes";
+
+    private static final ZanataMetrics NOOP = new ZanataMetrics() {
+        @Override
+        public void count(String name) {
+        }
+
+        @Override
+        public void update(String name, long value) {
+        }
+
+        @Override
+        public void time(String name, long duration, TimeUnit unit) {
+        }
+    };
+
+    /**
+     * @return the metrics in use, never null
+     */
+    public static ZanataMetrics get() {
+        Jenkins jenkins = Jenkins.getInstance();
+        if (jenkins == null) {
+            return NOOP;
+        }
+        ExtensionList<ZanataMetrics> all =
+                jenkins.getExtensionList(ZanataMetrics.class);
+        return all.isEmpty() ? NOOP : all.get(0);
+    }
+
+    /**
+     * Increments a counter.
+     */
+    public abstract void count(String name);
+
+    /**
+     * Adds a value to a histogram.
+     */
+    public abstract void update(String name, long value);
+
+    /**
+     * Adds a duration to a timer.
+     */
+    public abstract void time(String name, long duration, TimeUnit unit);
+
+    /**
+     * Records push and pull of each project version of a sync.
+     */
+    public void recordSync(SyncStatistics statistics) {
+        for (SyncStatistics.Entry entry : statistics.getEntries()) {
+            if (entry.getPhase() == SyncStatistics.Phase.PUSH) {
+                time(PUSH_DURATION, entry.getMillis(), TimeUnit.MILLISECONDS);
+                update(PUSH_DOCUMENTS, entry.getDocuments());
+            } else if (entry.getPhase() == SyncStatistics.Phase.PULL) {
+                time(PULL_DURATION, entry.getMillis(), TimeUnit.MILLISECONDS);
+                update(PULL_DOCUMENTS, entry.getDocuments());
+                update(PULL_BYTES, entry.getBytes());
+            }
+        }
+    }
+}
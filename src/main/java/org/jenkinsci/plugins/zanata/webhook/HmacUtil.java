@@ -21,24 +21,46 @@
 
 package org.jenkinsci.plugins.zanata.webhook;
 
+import java.nio.ByteBuffer;
 import java.security.InvalidKeyException;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
 
 import org.apache.commons.codec.binary.Base64;
 import org.apache.commons.codec.binary.StringUtils;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
 /**
+ * HMAC-SHA1 helpers for Zanata webhook signatures.
+ * <p>
+ * One initialized {@link Mac} per secret is kept as a prototype in a small
+ * bounded cache keyed by a SHA-256 hash of the secret. Each call works on a
+ * clone of it, so signing a webhook does not look up the provider and set up
+ * the key every time, and no request thread holds on to any secret.
+ *
  * @author Alex Eng <a href="mailto:aeng@redhat.com">aeng@redhat.com</a>
  */
 public class HmacUtil {
     private static final Logger log = LoggerFactory.getLogger(HmacUtil.class);
-
     private static final String HMAC_SHA1_ALGORITHM = "HmacSHA1";
+    private static final int MAX_CACHED_KEYS = 16;
+
+    // SHA-256 hex of secret to initialized Mac. Never used directly, only
+    // cloned.
+    private static final Cache<String, Mac> PROTOTYPES =
+            CacheBuilder.newBuilder().maximumSize(MAX_CACHED_KEYS)
+                    .expireAfterAccess(1, TimeUnit.HOURS).build();
 
     /**
      * Generate SHA with given key and valueToDigest.
@@ -56,15 +78,70 @@ public class HmacUtil {
 
     public static String hmacSha1(final byte[] key, final byte[] valueToDigest)
             throws IllegalArgumentException {
+        return Base64.encodeBase64String(rawHmacSha1(key, valueToDigest));
+    }
 
-        // Compute the hmac on input data bytes
-        byte[] rawHmac=  getHmacSha1(key).doFinal(valueToDigest);
-        return Base64.encodeBase64String(rawHmac);
+    /**
+     * Same as {@link #hmacSha1(byte[], byte[])} but without Base64 encoding
+     * the result.
+     */
+    public static byte[] rawHmacSha1(final byte[] key,
+            final byte[] valueToDigest) throws IllegalArgumentException {
+        return getHmacSha1(key).doFinal(valueToDigest);
     }
 
-    // Get an hmac_sha1 key from the raw key bytes
-    private static Mac getHmacSha1(final byte[] key) {
-        return getInitializedMac(HMAC_SHA1_ALGORITHM, key);
+    /**
+     * Same as {@link #rawHmacSha1(byte[], byte[])} but digests remaining
+     * bytes of the buffer.
+     */
+    public static byte[] rawHmacSha1(final byte[] key,
+            final ByteBuffer valueToDigest) throws IllegalArgumentException {
+        Mac mac = getHmacSha1(key);
+        mac.update(valueToDigest);
+        return mac.doFinal();
+    }
+
+    /**
+     * Compares two signatures in time which does not depend on how many
+     * leading characters match.
+     *
+     * @return true if both are not null and equal
+     */
+    public static boolean signatureEquals(final String expected,
+            final String actual) {
+        if (expected == null || actual == null) {
+            return false;
+        }
+        return MessageDigest.isEqual(StringUtils.getBytesUtf8(expected),
+                StringUtils.getBytesUtf8(actual));
+    }
+
+    /**
+     * @return an initialized hmac_sha1 Mac owned by the caller, e.g. for
+     * digesting a stream bit by bit
+     */
+    static Mac getHmacSha1(final byte[] key) {
+        Mac prototype = prototypeOf(key);
+        try {
+            return (Mac) prototype.clone();
+        } catch (CloneNotSupportedException e) {
+            log.debug("{} can not be cloned", prototype.getProvider());
+            return getInitializedMac(HMAC_SHA1_ALGORITHM, key);
+        }
+    }
+
+    private static Mac prototypeOf(final byte[] key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Null key");
+        }
+        // the array is copied so that caller changing it won't affect us
+        byte[] copy = key.clone();
+        try {
+            return PROTOTYPES.get(DigestUtils.sha256Hex(copy),
+                    () -> getInitializedMac(HMAC_SHA1_ALGORITHM, copy));
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            throw new IllegalArgumentException(e.getCause());
+        }
     }
 
     // Get an hmac_sha1 Mac instance and initialize with the signing key
@@ -86,4 +163,3 @@ public class HmacUtil {
     }
 
 }
-
@@ -22,16 +22,21 @@ package org.jenkinsci.plugins.zanata.webhook;
 
 import org.acegisecurity.context.SecurityContext;
 import org.acegisecurity.context.SecurityContextHolder;
+import org.jenkinsci.plugins.zanata.cli.SyncScope;
+import org.jenkinsci.plugins.zanata.metrics.ZanataMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.common.base.MoreObjects;
+import com.google.common.base.Strings;
 
+import hudson.model.Action;
 import hudson.model.BuildableItem;
 import hudson.model.Cause;
+import hudson.model.CauseAction;
 import hudson.model.Job;
 import hudson.security.ACL;
 import jenkins.model.Jenkins;
+import jenkins.model.ParameterizedJobMixIn;
 import net.sf.json.JSONObject;
 
 /**
@@ -42,10 +47,22 @@ public class Processor {
     private static final Logger log = LoggerFactory.getLogger(Processor.class);
     private final Jenkins jenkins;
     private final Job job;
+    private final int quietPeriod;
 
     public Processor(Jenkins instance, Job job) {
+        this(instance, job, 0);
+    }
+
+    /**
+     * @param quietPeriod
+     *         seconds to wait before building the job. Webhooks triggering
+     *         the job in the meantime are merged into the same build by
+     *         Jenkins queue.
+     */
+    public Processor(Jenkins instance, Job job, int quietPeriod) {
         this.jenkins = instance;
         this.job = job;
+        this.quietPeriod = quietPeriod;
     }
 
     public WebhookResult triggerJobs(String jobName, String remoteHost,
@@ -58,19 +75,17 @@ public class Processor {
             return new WebhookResult(200, jobName + " is not buildable");
 
         }
-        BuildableItem buildableItem = (BuildableItem) job;
-
-        String webhookType = payload.getString("type");
-        String zanataProject = MoreObjects.firstNonNull(payload.getString("project"), "unknown");
-        Cause cause = new Cause.RemoteCause(remoteHost,
-                String.format("webhook [%s] from project %s", webhookType,
-                        zanataProject));
-
+        Cause cause = new Cause.RemoteCause(remoteHost, describe(payload));
         SecurityContext saveCtx = null;
         try {
             saveCtx = SecurityContextHolder.getContext();
             ACL.impersonate(ACL.SYSTEM);
-            buildableItem.scheduleBuild(0, cause);
+            // when the job is already waiting in the queue, the cause and
+            // scope are added to the waiting item instead of scheduling
+            // another build
+            scheduleBuild(job, quietPeriod, new CauseAction(cause),
+                    new ZanataWebhookScopeAction(scopeOf(payload)));
+            ZanataMetrics.get().count(ZanataMetrics.BUILDS_TRIGGERED);
             return new WebhookResult(200,
                     String.format("Job '%s' is triggered", jobName));
         } catch (Exception e) {
@@ -81,4 +96,43 @@ public class Processor {
             SecurityContextHolder.setContext(saveCtx);
         }
     }
+
+    /**
+     * @return description of the webhook including project, version and
+     * locale if the payload has them
+     */
+    static String describe(JSONObject payload) {
+        StringBuilder note = new StringBuilder(String.format(
+                "webhook [%s] from project %s",
+                payload.optString("type", "unknown"),
+                payload.optString("project", "unknown")));
+        String version = payload.optString("version");
+        if (!Strings.isNullOrEmpty(version)) {
+            note.append(" version ").append(version);
+        }
+        String locale = payload.optString("locale");
+        if (!Strings.isNullOrEmpty(locale)) {
+            note.append(" locale ").append(locale);
+        }
+        return note.toString();
+    }
+
+    static SyncScope scopeOf(JSONObject payload) {
+        return SyncScope.of(payload.optString("project", null),
+                payload.optString("version", null),
+                payload.optString("locale", null));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void scheduleBuild(Job job, int quietPeriod,
+            Action... actions) {
+        // same as what BuildableItem.scheduleBuild does for both freestyle
+        // and pipeline jobs but lets us pass along actions
+        new ParameterizedJobMixIn() {
+            @Override
+            protected Job asJob() {
+                return job;
+            }
+        }.scheduleBuild2(quietPeriod, actions);
+    }
 }
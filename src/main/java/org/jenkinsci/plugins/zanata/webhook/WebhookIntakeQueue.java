@@ -0,0 +1,116 @@
+/*
+ * Copyright 2017, Red Hat, Inc. and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jenkinsci.plugins.zanata.webhook;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Bounded queue of accepted webhooks waiting to be processed by a small pool
+ * of worker threads. It lets the HTTP request thread return as soon as the
+ * webhook is validated, so a burst of webhooks can't tie up the threads
+ * serving Jenkins UI.
+ * <p>
+ * Capacity and number of workers can be changed by system properties
+ * {@code org.jenkinsci.plugins.zanata.webhook.WebhookIntakeQueue.capacity}
+ * and {@code org.jenkinsci.plugins.zanata.webhook.WebhookIntakeQueue.workers}.
+ * Worker threads are daemon threads and go away when idle.
+ */
+public final class WebhookIntakeQueue {
+    private static final Logger log =
+            LoggerFactory.getLogger(WebhookIntakeQueue.class);
+    private static final WebhookIntakeQueue INSTANCE = new WebhookIntakeQueue(
+            Integer.getInteger(WebhookIntakeQueue.class.getName() + ".capacity",
+                    100),
+            Integer.getInteger(WebhookIntakeQueue.class.getName() + ".workers",
+                    2));
+
+    private final int capacity;
+    private final ThreadPoolExecutor executor;
+
+    @VisibleForTesting
+    WebhookIntakeQueue(int capacity, int workers) {
+        this.capacity = capacity;
+        executor = new ThreadPoolExecutor(workers, workers, 60,
+                TimeUnit.SECONDS, new ArrayBlockingQueue<>(capacity),
+                new ThreadFactoryBuilder().setDaemon(true)
+                        .setNameFormat("zanata-webhook-%d").build(),
+                new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    public static WebhookIntakeQueue get() {
+        return INSTANCE;
+    }
+
+    /**
+     * @param task
+     *         work to do for an accepted webhook
+     * @return false if the queue is full and the task is not accepted
+     */
+    public boolean offer(Runnable task) {
+        try {
+            executor.execute(() -> {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    log.warn("error processing webhook", e);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            log.warn("webhook intake queue is full ({} waiting)",
+                    getQueueDepth());
+            return false;
+        }
+    }
+
+    /**
+     * @return number of webhooks waiting to be processed
+     */
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return number of webhooks being processed right now
+     */
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    @VisibleForTesting
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2017, Red Hat, Inc. and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jenkinsci.plugins.zanata.webhook;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import javax.annotation.CheckForNull;
+import javax.crypto.Mac;
+
+import org.apache.commons.codec.binary.Base64;
+
+import com.google.common.base.Strings;
+
+import net.sf.json.JSONObject;
+
+/**
+ * Body of a webhook request. It is read with a size limit, and its
+ * signature is computed over the raw bytes as they are read (rather than
+ * over JSON re-serialized after parsing). JSON is only parsed when it's
+ * first asked for.
+ * <p>
+ * Zanata signs a webhook with
+ * {@code hmacSha1(secret, hmacSha1(secret, body + requestURI))}.
+ */
+public final class WebhookPayload {
+    /**
+     * Default limit of webhook body size. Can be changed by system property
+     * {@code org.jenkinsci.plugins.zanata.webhook.WebhookPayload.maxBytes}.
+     */
+    public static final int MAX_BYTES = Integer.getInteger(
+            WebhookPayload.class.getName() + ".maxBytes", 64 * 1024);
+    private static final int BUFFER_SIZE = 4096;
+
+    private final byte[] body;
+    private final String expectedSignature;
+    private JSONObject json;
+
+    private WebhookPayload(byte[] body, String expectedSignature) {
+        this.body = body;
+        this.expectedSignature = expectedSignature;
+    }
+
+    /**
+     * @param in
+     *         request body
+     * @param maxBytes
+     *         maximum size of the body
+     * @param secret
+     *         webhook secret or null if the job has none
+     * @param requestURI
+     *         request URI which is part of the signature
+     * @throws TooLargeException
+     *         as soon as the body exceeds maxBytes
+     */
+    public static WebhookPayload read(InputStream in, int maxBytes,
+            @CheckForNull String secret, String requestURI)
+            throws IOException {
+        Mac mac = Strings.isNullOrEmpty(secret) ? null :
+                HmacUtil.getHmacSha1(secret.getBytes(StandardCharsets.UTF_8));
+        ByteArrayOutputStream body =
+                new ByteArrayOutputStream(Math.min(maxBytes, BUFFER_SIZE));
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            if (body.size() + read > maxBytes) {
+                throw new TooLargeException(maxBytes);
+            }
+            body.write(buffer, 0, read);
+            if (mac != null) {
+                mac.update(buffer, 0, read);
+            }
+        }
+        String expectedSignature = null;
+        if (mac != null) {
+            mac.update(requestURI.getBytes(StandardCharsets.UTF_8));
+            String innerSignature = Base64.encodeBase64String(mac.doFinal());
+            expectedSignature = HmacUtil.hmacSha1(secret, innerSignature);
+        }
+        return new WebhookPayload(body.toByteArray(), expectedSignature);
+    }
+
+    public boolean isEmpty() {
+        return body.length == 0;
+    }
+
+    /**
+     * @param signature
+     *         value of X-Zanata-Webhook header
+     * @return whether the signature is what Zanata would send. Always true if
+     * it's read without secret.
+     */
+    public boolean signatureMatches(@CheckForNull String signature) {
+        return expectedSignature == null
+                || HmacUtil.signatureEquals(expectedSignature, signature);
+    }
+
+    /**
+     * @return body parsed as JSON
+     */
+    public synchronized JSONObject getJson() {
+        if (json == null) {
+            json = JSONObject.fromObject(
+                    new String(body, StandardCharsets.UTF_8));
+        }
+        return json;
+    }
+
+    /**
+     * Thrown when a webhook body is larger than the limit.
+     */
+    public static class TooLargeException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        public TooLargeException(int maxBytes) {
+            super("webhook payload is larger than " + maxBytes + " bytes");
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2017, Red Hat, Inc. and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jenkinsci.plugins.zanata.webhook;
+
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.jenkinsci.plugins.zanata.cli.SyncScope;
+
+import com.google.common.base.Joiner;
+
+import hudson.EnvVars;
+import hudson.Extension;
+import hudson.Util;
+import hudson.model.AbstractBuild;
+import hudson.model.Action;
+import hudson.model.EnvironmentContributingAction;
+import hudson.model.InvisibleAction;
+import hudson.model.Queue;
+import hudson.model.queue.FoldableAction;
+import jenkins.model.Jenkins;
+
+/**
+ * Records which Zanata project, version and locale the webhooks triggering
+ * a build are about, so that the build only pulls what has changed.
+ * Webhooks folded into an already queued build widen its scope. A build
+ * without this action (e.g. started by hand) syncs everything, and so does a
+ * queued build once such a request comes in (see
+ * {@link UnrestrictedRequestHandler}).
+ * <p>
+ * The scope is also exposed as environment variables
+ * {@value #ENV_PROJECT}, {@value #ENV_VERSION} and {@value #ENV_LOCALE}
+ * (comma separated, unset if not restricted).
+ */
+public class ZanataWebhookScopeAction extends InvisibleAction
+        implements FoldableAction, EnvironmentContributingAction {
+    public static final String ENV_PROJECT = "ZANATA_WEBHOOK_PROJECT";
+    public static final String ENV_VERSION = "ZANATA_WEBHOOK_VERSION";
+    public static final String ENV_LOCALE = "ZANATA_WEBHOOK_LOCALE";
+
+    private final SyncScope scope;
+
+    public ZanataWebhookScopeAction(SyncScope scope) {
+        this.scope = scope;
+    }
+
+    public SyncScope getScope() {
+        return scope;
+    }
+
+    @Override
+    public void foldIntoExisting(Queue.Item item, Queue.Task owner,
+            List<Action> otherActions) {
+        ZanataWebhookScopeAction existing =
+                item.getAction(ZanataWebhookScopeAction.class);
+        if (existing != null) {
+            item.replaceAction(
+                    new ZanataWebhookScopeAction(existing.scope.merge(scope)));
+        }
+        // otherwise the queued build is not restricted and covers this one
+    }
+
+    /**
+     * Requests without a scope (e.g. started by hand, by SCM polling or by
+     * an upstream build) are folded into a queued build just like webhooks,
+     * but never call {@link #foldIntoExisting}. This lifts the restriction
+     * of queued builds of the same task so that such a request is not
+     * narrowed down to what the webhooks were about. A queued build which
+     * ends up not taking the request (e.g. different parameters) just syncs
+     * more than needed.
+     */
+    @Extension
+    public static class UnrestrictedRequestHandler
+            extends Queue.QueueDecisionHandler {
+        @Override
+        public boolean shouldSchedule(Queue.Task p, List<Action> actions) {
+            Jenkins jenkins = Jenkins.getInstance();
+            if (jenkins == null || !Util.filter(actions,
+                    ZanataWebhookScopeAction.class).isEmpty()) {
+                return true;
+            }
+            for (Queue.Item item : jenkins.getQueue().getItems(p)) {
+                ZanataWebhookScopeAction existing =
+                        item.getAction(ZanataWebhookScopeAction.class);
+                if (existing != null && !existing.scope.isEverything()) {
+                    item.replaceAction(
+                            new ZanataWebhookScopeAction(SyncScope.EVERYTHING));
+                }
+            }
+            return true;
+        }
+    }
+
+    @Override
+    public void buildEnvVars(AbstractBuild<?, ?> build, EnvVars env) {
+        putIfRestricted(env, ENV_PROJECT, scope.getProjects());
+        putIfRestricted(env, ENV_VERSION, scope.getVersions());
+        putIfRestricted(env, ENV_LOCALE, scope.getLocales());
+    }
+
+    private static void putIfRestricted(EnvVars env, String name,
+            Set<String> values) {
+        if (values != null) {
+            env.put(name, Joiner.on(',').join(new TreeSet<>(values)));
+        }
+    }
+}
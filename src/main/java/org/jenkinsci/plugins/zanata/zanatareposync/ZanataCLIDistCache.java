@@ -0,0 +1,301 @@
+/*
+ * Copyright 2017, Red Hat, Inc. and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jenkinsci.plugins.zanata.zanatareposync;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.annotation.CheckForNull;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.NullOutputStream;
+
+import com.google.common.base.Strings;
+
+import hudson.ProxyConfiguration;
+import hudson.Util;
+import hudson.model.TaskListener;
+import jenkins.model.Jenkins;
+
+/**
+ * Zanata CLI dist zips downloaded by (or uploaded to) the Jenkins controller.
+ * Each version is downloaded (and its checksum verified) once, resuming an
+ * interrupted download where the server supports ranges. Nodes installing
+ * the CLI get the zip from here over the remoting channel instead of from
+ * the internet.
+ */
+public class ZanataCLIDistCache {
+    private static final ConcurrentMap<String, Object> LOCKS =
+            new ConcurrentHashMap<>();
+    private static final String SHA1_SUFFIX = ".sha1";
+
+    private final File root;
+
+    public ZanataCLIDistCache(File root) {
+        this.root = root;
+    }
+
+    /**
+     * @return the cache in Jenkins home directory
+     */
+    public static ZanataCLIDistCache onController() {
+        return new ZanataCLIDistCache(new File(
+                Jenkins.getActiveInstance().getRootDir(), "caches/zanata-cli"));
+    }
+
+    /**
+     * A verified dist zip.
+     */
+    public static final class Dist {
+        private final File zip;
+        private final String sha1;
+
+        Dist(File zip, String sha1) {
+            this.zip = zip;
+            this.sha1 = sha1;
+        }
+
+        public File getZip() {
+            return zip;
+        }
+
+        /**
+         * @return SHA-1 of the zip in lower case hex
+         */
+        public String getSha1() {
+            return sha1;
+        }
+    }
+
+    /**
+     * Gets a dist zip from the cache, downloading it if it's not there.
+     *
+     * @param version
+     *         CLI version
+     * @param url
+     *         where to download the zip from
+     * @param expectedSha1
+     *         SHA-1 the zip must have, or null to use the checksum published
+     *         next to the zip (url + ".sha1")
+     * @param listener
+     *         for progress messages
+     * @return the verified zip
+     * @throws IOException
+     *         if the download fails or the checksum doesn't match
+     */
+    public Dist get(String version, URL url, @CheckForNull String expectedSha1,
+            TaskListener listener) throws IOException {
+        String expected = Strings.isNullOrEmpty(expectedSha1) ? null :
+                expectedSha1.trim().toLowerCase();
+        File zip = zipOf(version);
+        File sha1File = sha1FileOf(zip);
+        synchronized (lockFor(zip)) {
+            if (zip.isFile() && sha1File.isFile()) {
+                String sha1 = readSha1(sha1File);
+                if (expected == null || expected.equals(sha1)) {
+                    return new Dist(zip, sha1);
+                }
+                listener.getLogger().println("Checksum of cached " + zip
+                        + " is not " + expected + ". Downloading again.");
+            }
+            if (expected == null) {
+                expected = fetchPublishedSha1(url);
+            }
+            File part = partOf(zip);
+            String actual = download(url, part, listener);
+            if (!expected.equals(actual)) {
+                Files.deleteIfExists(part.toPath());
+                throw new IOException(String.format(
+                        "checksum of %s is %s but expected %s", url, actual,
+                        expected));
+            }
+            return store(part, zip, actual);
+        }
+    }
+
+    /**
+     * Puts a dist zip into the cache, e.g. one uploaded by an administrator
+     * when Jenkins can't download it itself.
+     *
+     * @param version
+     *         CLI version
+     * @param in
+     *         content of the dist zip
+     * @return the cached zip
+     */
+    public Dist put(String version, InputStream in) throws IOException {
+        File zip = zipOf(version);
+        synchronized (lockFor(zip)) {
+            File part = partOf(zip);
+            MessageDigest digest = sha1Digest();
+            try (InputStream digestIn = new DigestInputStream(in, digest);
+                    OutputStream out = Files.newOutputStream(part.toPath())) {
+                IOUtils.copy(digestIn, out);
+            }
+            return store(part, zip, Util.toHexString(digest.digest()));
+        }
+    }
+
+    private File zipOf(String version) throws IOException {
+        if (Strings.isNullOrEmpty(version)
+                || !version.matches("[0-9.\\-a-zA-Z_]+")) {
+            throw new IOException("invalid Zanata CLI version: " + version);
+        }
+        File dir = new File(root, version);
+        Files.createDirectories(dir.toPath());
+        return new File(dir, distFileName(version));
+    }
+
+    static String distFileName(String version) {
+        return "zanata-cli-" + version + "-dist.zip";
+    }
+
+    private static File sha1FileOf(File zip) {
+        return new File(zip.getParentFile(), zip.getName() + SHA1_SUFFIX);
+    }
+
+    private static File partOf(File zip) {
+        return new File(zip.getParentFile(), zip.getName() + ".part");
+    }
+
+    private static Dist store(File part, File zip, String sha1)
+            throws IOException {
+        Files.move(part.toPath(), zip.toPath(),
+                StandardCopyOption.REPLACE_EXISTING);
+        Files.write(sha1FileOf(zip).toPath(),
+                sha1.getBytes(StandardCharsets.UTF_8));
+        return new Dist(zip, sha1);
+    }
+
+    private static Object lockFor(File zip) {
+        return LOCKS.computeIfAbsent(zip.getAbsolutePath(), k -> new Object());
+    }
+
+    private static String readSha1(File file) throws IOException {
+        return firstToken(new String(Files.readAllBytes(file.toPath()),
+                StandardCharsets.UTF_8));
+    }
+
+    // sha1 files may have the file name after the checksum
+    private static String firstToken(String text) {
+        String trimmed = text.trim();
+        int space = trimmed.indexOf(' ');
+        return (space < 0 ? trimmed : trimmed.substring(0, space))
+                .toLowerCase();
+    }
+
+    private static String fetchPublishedSha1(URL url) throws IOException {
+        URL sha1Url = new URL(url.toExternalForm() + SHA1_SUFFIX);
+        try (InputStream in = ProxyConfiguration.open(sha1Url)
+                .getInputStream()) {
+            String sha1 = firstToken(IOUtils.toString(in, StandardCharsets.UTF_8.name()));
+            if (!sha1.matches("[0-9a-f]{40}")) {
+                throw new IOException("no SHA-1 checksum found at " + sha1Url
+                        + ". Please give the checksum in the installer configuration.");
+            }
+            return sha1;
+        }
+    }
+
+    /**
+     * Downloads to the part file. If an earlier download left a part file
+     * behind, asks the server for the rest only. If the server refuses the
+     * range (e.g. 416 because the part file is complete already), the part
+     * file is deleted and the download starts over once without a range.
+     *
+     * @return SHA-1 of the whole file
+     */
+    private static String download(URL url, File part, TaskListener listener)
+            throws IOException {
+        MessageDigest digest = sha1Digest();
+        long offset = part.isFile() ? part.length() : 0;
+        URLConnection con = ProxyConfiguration.open(url);
+        boolean resume = false;
+        if (offset > 0) {
+            con.setRequestProperty("Range", "bytes=" + offset + "-");
+            int status = responseCode(con);
+            resume = status == HttpURLConnection.HTTP_PARTIAL;
+            if (!isSuccessful(status)) {
+                listener.getLogger().println("Can not resume download of "
+                        + url + " (HTTP " + status + "). Starting over.");
+                ((HttpURLConnection) con).disconnect();
+                Files.deleteIfExists(part.toPath());
+                con = ProxyConfiguration.open(url);
+            }
+        }
+        if (resume) {
+            listener.getLogger().println("Resuming download of " + url
+                    + " from byte " + offset);
+            try (InputStream existing = new DigestInputStream(
+                    Files.newInputStream(part.toPath()), digest)) {
+                IOUtils.copy(existing, new NullOutputStream());
+            }
+        } else {
+            int status = responseCode(con);
+            if (!isSuccessful(status)) {
+                throw new IOException(
+                        "failed to download " + url + ": HTTP " + status);
+            }
+            listener.getLogger().println("Downloading " + url);
+        }
+        try (InputStream in = new DigestInputStream(con.getInputStream(),
+                digest);
+                OutputStream out = new FileOutputStream(part, resume)) {
+            IOUtils.copy(in, out);
+        }
+        return Util.toHexString(digest.digest());
+    }
+
+    /**
+     * @return HTTP status of the response, or 200 for other protocols
+     */
+    private static int responseCode(URLConnection con) throws IOException {
+        return con instanceof HttpURLConnection ?
+                ((HttpURLConnection) con).getResponseCode() :
+                HttpURLConnection.HTTP_OK;
+    }
+
+    private static boolean isSuccessful(int status) {
+        return status >= 200 && status < 300;
+    }
+
+    static MessageDigest sha1Digest() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -36,7 +36,6 @@ import hudson.slaves.NodeSpecific;
 import hudson.tools.ToolDescriptor;
 import hudson.tools.ToolInstallation;
 import hudson.tools.ToolInstaller;
-import hudson.tools.ZipExtractionInstaller;
 import hudson.util.FormValidation;
 
 /**
@@ -47,8 +46,6 @@ import hudson.util.FormValidation;
         justification = "Actually we do not send the class over the channel. Serial version ID is not required for XStream")
 public class ZanataCLIInstall extends ToolInstallation implements
         NodeSpecific<ZanataCLIInstall> {
-    private static final String DEFAULT_VERSION = "4.0.0";
-
     @Nonnull
     private final String version;
 
@@ -125,18 +122,10 @@ public class ZanataCLIInstall extends ToolInstallation implements
 
         @Override
         public List<? extends ToolInstaller> getDefaultInstallers() {
-            String downloadURL =
-                    toDownloadURL(DEFAULT_VERSION);
-            return Collections.singletonList(new ZipExtractionInstaller(null,
-                    downloadURL, toSubdir(DEFAULT_VERSION)));
+            return Collections.singletonList(new ZanataCLIInstaller(null, null));
         }
 
-        private static String toDownloadURL(String version) {
-            return String.format(
-                    "https://repo1.maven.org/maven2/org/zanata/zanata-cli/%s/zanata-cli-%s-dist.zip",
-                    version, version);
-        }
-        private static String toSubdir(String version) {
+        static String toSubdir(String version) {
             return "zanata-cli-" + version;
         }
     }
@@ -0,0 +1,299 @@
+/*
+ * Copyright 2017, Red Hat, Inc. and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jenkinsci.plugins.zanata.zanatareposync;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+
+import javax.annotation.CheckForNull;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.fileupload.FileItem;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.NullOutputStream;
+import org.apache.commons.lang.StringUtils;
+import org.jenkinsci.remoting.RoleChecker;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+import org.kohsuke.stapler.QueryParameter;
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
+import org.kohsuke.stapler.interceptor.RequirePOST;
+
+import com.google.common.base.Strings;
+
+import hudson.AbortException;
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.Util;
+import hudson.model.Node;
+import hudson.model.TaskListener;
+import hudson.remoting.RemoteInputStream;
+import hudson.remoting.VirtualChannel;
+import hudson.tools.ToolInstallation;
+import hudson.tools.ToolInstaller;
+import hudson.tools.ToolInstallerDescriptor;
+import hudson.util.FormValidation;
+import jenkins.model.Jenkins;
+
+/**
+ * Installs Zanata CLI from the dist zip cached by the Jenkins controller
+ * (see {@link ZanataCLIDistCache}).
+ * <p>
+ * The controller downloads the zip from a Maven repository (Maven Central
+ * unless a mirror is given) or has it uploaded by an administrator. Nodes
+ * copy it over the remoting channel, carrying on from where an interrupted
+ * copy stopped, and verify its checksum before extracting it.
+ * <p>
+ * The node remembers the checksum of the zip it was installed from. As long
+ * as it matches, later builds use the installation as is without downloading
+ * or checking anything remotely.
+ */
+public class ZanataCLIInstaller extends ToolInstaller {
+    public static final String MAVEN_CENTRAL = "https://repo1.maven.org/maven2";
+    static final String INSTALLED_SHA1 = ".zanata-cli.sha1";
+
+    private final String sha1;
+    private String repositoryURL;
+
+    /**
+     * @param label
+     *         nodes this installer applies to
+     * @param sha1
+     *         expected SHA-1 of the dist zip. Blank to use the checksum
+     *         published next to the zip.
+     */
+    @DataBoundConstructor
+    public ZanataCLIInstaller(String label, String sha1) {
+        super(label);
+        this.sha1 = Util.fixEmptyAndTrim(sha1);
+    }
+
+    public String getSha1() {
+        return sha1;
+    }
+
+    /**
+     * @return Maven repository to download the dist zip from. null means
+     * Maven Central.
+     */
+    public String getRepositoryURL() {
+        return repositoryURL;
+    }
+
+    @DataBoundSetter
+    public void setRepositoryURL(String repositoryURL) {
+        this.repositoryURL = Util.fixEmptyAndTrim(repositoryURL);
+    }
+
+    static String toDownloadURL(@CheckForNull String repositoryURL,
+            String version) {
+        String repo = Strings.isNullOrEmpty(repositoryURL) ? MAVEN_CENTRAL :
+                StringUtils.removeEnd(repositoryURL, "/");
+        return String.format("%s/org/zanata/zanata-cli/%s/%s", repo, version,
+                ZanataCLIDistCache.distFileName(version));
+    }
+
+    @Override
+    public FilePath performInstallation(ToolInstallation tool, Node node,
+            TaskListener log) throws IOException, InterruptedException {
+        if (!(tool instanceof ZanataCLIInstall)) {
+            throw new AbortException(
+                    "Zanata CLI installer can not install " + tool.getName());
+        }
+        String version = ((ZanataCLIInstall) tool).getVersion();
+        FilePath dir = preferredLocation(tool, node);
+        FilePath home = dir.child(ZanataCLIInstall.DescriptorImpl.toSubdir(version));
+
+        ZanataCLIDistCache.Dist dist = ZanataCLIDistCache.onController().get(
+                version, new URL(toDownloadURL(repositoryURL, version)), sha1,
+                log);
+        FilePath installedSha1 = dir.child(INSTALLED_SHA1);
+        if (home.exists() && installedSha1.exists() && dist.getSha1()
+                .equals(installedSha1.readToString().trim())) {
+            return home;
+        }
+
+        log.getLogger().println("Installing Zanata CLI " + version + " to "
+                + dir + " on " + node.getDisplayName());
+        dir.mkdirs();
+        // outside of dir so that it survives a failed install
+        FilePath zip = dir.sibling(dir.getName() + "-" + dist.getZip().getName());
+        copyToNode(dist, zip);
+        String copied = zip.act(new Sha1Callable());
+        if (!dist.getSha1().equals(copied)) {
+            zip.delete();
+            throw new IOException(String.format(
+                    "checksum of %s is %s but expected %s", zip, copied,
+                    dist.getSha1()));
+        }
+        dir.deleteContents();
+        zip.unzip(dir);
+        zip.delete();
+        FilePath script = home.child("bin/zanata-cli");
+        if (script.exists()) {
+            script.chmod(0755);
+        }
+        // written last so that a half done install is not used
+        installedSha1.write(dist.getSha1(), "UTF-8");
+        return home;
+    }
+
+    /**
+     * Copies the dist zip to the node, carrying on from what an earlier
+     * (interrupted) copy left behind.
+     */
+    private static void copyToNode(ZanataCLIDistCache.Dist dist, FilePath zip)
+            throws IOException, InterruptedException {
+        long offset = zip.exists() ? zip.length() : 0;
+        if (offset >= dist.getZip().length()) {
+            // complete or not ours. Checksum will tell.
+            if (offset == dist.getZip().length()) {
+                return;
+            }
+            offset = 0;
+        }
+        try (InputStream in = new FileInputStream(dist.getZip())) {
+            IOUtils.skipFully(in, offset);
+            zip.act(new AppendCallable(
+                    new RemoteInputStream(in, RemoteInputStream.Flag.GREEDY),
+                    offset > 0));
+        }
+    }
+
+    private static class AppendCallable implements FilePath.FileCallable<Void> {
+        private static final long serialVersionUID = 1L;
+        private final InputStream in;
+        private final boolean append;
+
+        AppendCallable(InputStream in, boolean append) {
+            this.in = in;
+            this.append = append;
+        }
+
+        @Override
+        public Void invoke(File f, VirtualChannel channel) throws IOException {
+            try (InputStream input = in;
+                    OutputStream out = new FileOutputStream(f, append)) {
+                IOUtils.copy(input, out);
+            }
+            return null;
+        }
+
+        @Override
+        public void checkRoles(RoleChecker roleChecker)
+                throws SecurityException {
+        }
+    }
+
+    private static class Sha1Callable implements FilePath.FileCallable<String> {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public String invoke(File f, VirtualChannel channel) throws IOException {
+            MessageDigest digest = ZanataCLIDistCache.sha1Digest();
+            try (InputStream in = new DigestInputStream(new FileInputStream(f),
+                    digest)) {
+                IOUtils.copy(in, new NullOutputStream());
+            }
+            return Util.toHexString(digest.digest());
+        }
+
+        @Override
+        public void checkRoles(RoleChecker roleChecker)
+                throws SecurityException {
+        }
+    }
+
+    @Extension
+    public static final class DescriptorImpl
+            extends ToolInstallerDescriptor<ZanataCLIInstaller> {
+
+        @Override
+        public String getDisplayName() {
+            return "Install from Maven repository (downloaded once by Jenkins)";
+        }
+
+        @Override
+        public boolean isApplicable(
+                Class<? extends ToolInstallation> toolType) {
+            return toolType == ZanataCLIInstall.class;
+        }
+
+        /**
+         * Takes an uploaded dist zip into the controller's cache, for when
+         * Jenkins can't download it itself. Responds with its SHA-1.
+         */
+        @RequirePOST
+        @SuppressWarnings("unused")
+        public void doUploadDist(StaplerRequest req, StaplerResponse rsp,
+                @QueryParameter String version)
+                throws IOException, ServletException {
+            Jenkins.getActiveInstance().checkPermission(Jenkins.ADMINISTER);
+            FileItem file = req.getFileItem("file");
+            if (file == null) {
+                rsp.sendError(HttpServletResponse.SC_BAD_REQUEST,
+                        "no file uploaded");
+                return;
+            }
+            ZanataCLIDistCache.Dist dist;
+            try (InputStream in = file.getInputStream()) {
+                dist = ZanataCLIDistCache.onController().put(version, in);
+            } finally {
+                file.delete();
+            }
+            rsp.setContentType("text/plain;charset=UTF-8");
+            rsp.getWriter().println(dist.getSha1());
+        }
+
+        @SuppressWarnings("unused")
+        public FormValidation doCheckRepositoryURL(
+                @QueryParameter String value) {
+            if (Strings.isNullOrEmpty(value)) {
+                return FormValidation.ok();
+            }
+            try {
+                new URL(value.trim());
+                return FormValidation.ok();
+            } catch (MalformedURLException e) {
+                return FormValidation.error("Not a valid URL");
+            }
+        }
+
+        @SuppressWarnings("unused")
+        public FormValidation doCheckSha1(@QueryParameter String value) {
+            if (Strings.isNullOrEmpty(value) || value.trim()
+                    .matches("[0-9a-fA-F]{40}")) {
+                return FormValidation.ok();
+            }
+            return FormValidation.error("Please enter a SHA-1 checksum (40 hex characters)");
+        }
+    }
+}
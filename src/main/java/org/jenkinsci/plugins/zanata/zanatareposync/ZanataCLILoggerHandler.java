@@ -1,86 +0,0 @@
-/*
- * Copyright 2016, Red Hat, Inc. and individual contributors
- * as indicated by the @author tags. See the copyright.txt file in the
- * distribution for a full listing of individual contributors.
- *
- * This is free software; you can redistribute it and/or modify it
- * under the terms of the GNU Lesser General Public License as
- * published by the Free Software Foundation; either version 2.1 of
- * the License, or (at your option) any later version.
- *
- * This software is distributed in the hope that it will be useful,
- * but WITHOUT ANY WARRANTY; without even the implied warranty of
- * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
- * Lesser General Public License for more details.
- *
- * You should have received a copy of the GNU Lesser General Public
- * License along with this software; if not, write to the Free
- * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
- * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
- */
-package org.jenkinsci.plugins.zanata.zanatareposync;
-
-import java.io.OutputStream;
-import java.util.logging.Level;
-import java.util.logging.LogRecord;
-import java.util.logging.SimpleFormatter;
-import java.util.logging.StreamHandler;
-
-
-/**
- * Modified from java.util.logging.ConsoleHandler
- * @author Patrick Huang <a href="mailto:pahuang@redhat.com">pahuang@redhat.com</a>
- */
-public class ZanataCLILoggerHandler extends StreamHandler {
-
-
-    public ZanataCLILoggerHandler(OutputStream outputStream) {
-        configure();
-        setOutputStream(outputStream);
-    }
-
-    // Private method to configure a ConsoleHandler from LogManager
-    // properties and/or default values as specified in the class
-    // javadoc.
-    private void configure() {
-        setLevel(Level.INFO);
-        setFilter(null);
-        setFormatter(new SimpleFormatter());
-        try {
-            setEncoding(null);
-        } catch (Exception ex) {
-            try {
-                setEncoding(null);
-            } catch (Exception ex2) {
-                // doing a setEncoding with null should always work.
-                // assert false;
-            }
-        }
-    }
-
-    /**
-     * Publish a <tt>LogRecord</tt>.
-     * <p>
-     * The logging request was made initially to a <tt>Logger</tt> object,
-     * which initialized the <tt>LogRecord</tt> and forwarded it here.
-     * <p>
-     * @param  record  description of the log event. A null record is
-     *                 silently ignored and is not published
-     */
-    @Override
-    public void publish(LogRecord record) {
-        super.publish(record);
-        flush();
-    }
-
-    /**
-     * Override <tt>StreamHandler.close</tt> to do a flush but not
-     * to close the output stream.  That is, we do <b>not</b>
-     * close <tt>System.err</tt>.
-     */
-    @Override
-    public void close() {
-        flush();
-    }
-
-}
@@ -0,0 +1,378 @@
+/*
+ * Copyright 2017, Red Hat, Inc. and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jenkinsci.plugins.zanata.zanatareposync;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.Nonnull;
+import javax.servlet.ServletException;
+
+import org.jenkinsci.plugins.workflow.steps.AbstractStepDescriptorImpl;
+import org.jenkinsci.plugins.workflow.steps.AbstractStepExecutionImpl;
+import org.jenkinsci.plugins.workflow.steps.AbstractStepImpl;
+import org.jenkinsci.plugins.workflow.steps.StepContextParameter;
+import org.jenkinsci.plugins.zanata.cli.HasSyncJobDetail;
+import org.kohsuke.stapler.AncestorInPath;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+import org.kohsuke.stapler.QueryParameter;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.Inject;
+
+import hudson.AbortException;
+import hudson.EnvVars;
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.Util;
+import hudson.model.AbstractProject;
+import hudson.model.Job;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.util.FormValidation;
+import hudson.util.ListBoxModel;
+import jenkins.model.Jenkins;
+
+/**
+ * Pipeline step ({@code zanataSync}) doing what {@link ZanataSyncStep} does.
+ * <p>
+ * The sync runs on a thread of its own so that it does not hold the CPS VM
+ * thread while it waits on Zanata and git. Syncs of different project configs
+ * can be run in {@code parallel} branches by giving each branch its own
+ * {@code zanataProjectConfigs}.
+ */
+public class ZanataSyncPipelineStep extends AbstractStepImpl
+        implements HasSyncJobDetail {
+    private static final long serialVersionUID = 1L;
+
+    private final String zanataCredentialsId;
+    private String zanataURL;
+    private String syncOption = "source";
+    private String zanataProjectConfigs;
+    private String zanataLocaleIds;
+    private boolean pushToZanata = true;
+    private boolean pullFromZanata = true;
+    private int concurrency = 1;
+    private boolean incrementalPush;
+    private String pullCache = PULL_CACHE_WORKSPACE;
+    private boolean pushCommit;
+    private String pushCommitBranch;
+    private String pushCommitCredentialsId;
+
+    @DataBoundConstructor
+    public ZanataSyncPipelineStep(String zanataCredentialsId) {
+        this.zanataCredentialsId = zanataCredentialsId;
+    }
+
+    @Override
+    public String getZanataURL() {
+        return zanataURL;
+    }
+
+    @Override
+    public String getSyncOption() {
+        return syncOption;
+    }
+
+    @Override
+    public String getZanataProjectConfigs() {
+        return zanataProjectConfigs;
+    }
+
+    @Override
+    public String getZanataLocaleIds() {
+        return zanataLocaleIds;
+    }
+
+    public boolean isPushToZanata() {
+        return pushToZanata;
+    }
+
+    public boolean isPullFromZanata() {
+        return pullFromZanata;
+    }
+
+    /**
+     * @return always null. Credentials are resolved for each execution.
+     */
+    @Override
+    public String getZanataUsername() {
+        return null;
+    }
+
+    /**
+     * @return always null. Credentials are resolved for each execution.
+     */
+    @Override
+    public String getZanataSecret() {
+        return null;
+    }
+
+    @Override
+    public String getZanataCredentialsId() {
+        return zanataCredentialsId;
+    }
+
+    @Override
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    @Override
+    public boolean isIncrementalPush() {
+        return incrementalPush;
+    }
+
+    @Override
+    public String getPullCache() {
+        return pullCache;
+    }
+
+    @Override
+    public boolean isPushCommit() {
+        return pushCommit;
+    }
+
+    @Override
+    public String getPushCommitBranch() {
+        return pushCommitBranch;
+    }
+
+    @Override
+    public String getPushCommitCredentialsId() {
+        return pushCommitCredentialsId;
+    }
+
+    @DataBoundSetter
+    public void setZanataURL(String zanataURL) {
+        this.zanataURL = zanataURL;
+    }
+
+    @DataBoundSetter
+    public void setSyncOption(String syncOption) {
+        this.syncOption = syncOption;
+    }
+
+    @DataBoundSetter
+    public void setZanataProjectConfigs(String zanataProjectConfigs) {
+        this.zanataProjectConfigs = zanataProjectConfigs;
+    }
+
+    @DataBoundSetter
+    public void setZanataLocaleIds(String zanataLocaleIds) {
+        this.zanataLocaleIds = zanataLocaleIds;
+    }
+
+    @DataBoundSetter
+    public void setPushToZanata(boolean pushToZanata) {
+        this.pushToZanata = pushToZanata;
+    }
+
+    @DataBoundSetter
+    public void setPullFromZanata(boolean pullFromZanata) {
+        this.pullFromZanata = pullFromZanata;
+    }
+
+    @DataBoundSetter
+    public void setConcurrency(int concurrency) {
+        this.concurrency = concurrency;
+    }
+
+    @DataBoundSetter
+    public void setIncrementalPush(boolean incrementalPush) {
+        this.incrementalPush = incrementalPush;
+    }
+
+    @DataBoundSetter
+    public void setPullCache(String pullCache) {
+        this.pullCache = pullCache;
+    }
+
+    @DataBoundSetter
+    public void setPushCommit(boolean pushCommit) {
+        this.pushCommit = pushCommit;
+    }
+
+    @DataBoundSetter
+    public void setPushCommitBranch(String pushCommitBranch) {
+        this.pushCommitBranch = Util.fixEmptyAndTrim(pushCommitBranch);
+    }
+
+    @DataBoundSetter
+    public void setPushCommitCredentialsId(String pushCommitCredentialsId) {
+        this.pushCommitCredentialsId =
+                Util.fixEmptyAndTrim(pushCommitCredentialsId);
+    }
+
+    /**
+     * Runs the sync on a thread of {@link #SYNC_THREADS} and completes the
+     * step when it's done.
+     */
+    public static class Execution extends AbstractStepExecutionImpl {
+        private static final long serialVersionUID = 1L;
+        private static final ExecutorService SYNC_THREADS =
+                Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+                        .setDaemon(true).setNameFormat("zanataSync-%d")
+                        .build());
+
+        @Inject(optional = true)
+        private transient ZanataSyncPipelineStep step;
+        @StepContextParameter
+        private transient Run<?, ?> run;
+        @StepContextParameter
+        private transient FilePath workspace;
+        @StepContextParameter
+        private transient TaskListener listener;
+        @StepContextParameter
+        private transient EnvVars env;
+        private transient volatile Future<?> sync;
+        // the context is completed either by the sync thread or by stop
+        private final transient AtomicBoolean completed = new AtomicBoolean();
+
+        @Override
+        public boolean start() throws Exception {
+            sync = SYNC_THREADS.submit(() -> {
+                try {
+                    ZanataSyncStep.sync(step, step.isPushToZanata(),
+                            step.isPullFromZanata(), run, workspace, env,
+                            listener);
+                    complete(() -> getContext().onSuccess(null));
+                } catch (Throwable t) {
+                    complete(() -> getContext().onFailure(t));
+                }
+            });
+            return false;
+        }
+
+        @Override
+        public void stop(@Nonnull Throwable cause) throws Exception {
+            complete(() -> getContext().onFailure(cause));
+            Future<?> running = sync;
+            if (running != null) {
+                running.cancel(true);
+            }
+        }
+
+        private void complete(Runnable callback) {
+            if (completed.compareAndSet(false, true)) {
+                callback.run();
+            }
+        }
+
+        @Override
+        public void onResume() {
+            // The sync thread is gone. What it did so far (e.g. pulled but
+            // not committed) can't be picked up safely, so fail the step.
+            getContext().onFailure(new AbortException(
+                    "Zanata sync was interrupted by Jenkins restart. Please run it again."));
+        }
+    }
+
+    @Extension
+    public static final class DescriptorImpl
+            extends AbstractStepDescriptorImpl {
+
+        public DescriptorImpl() {
+            super(Execution.class);
+        }
+
+        @Override
+        public String getFunctionName() {
+            return "zanataSync";
+        }
+
+        @Override
+        public String getDisplayName() {
+            return "Zanata Sync";
+        }
+
+        /**
+         * @return the build step class whose config.jelly this step uses
+         */
+        @SuppressWarnings("unused")
+        public Class<?> getBuildStepClass() {
+            return ZanataSyncStep.class;
+        }
+
+        @Override
+        public String getHelpFile(String fieldName) {
+            String helpFile = super.getHelpFile(fieldName);
+            return helpFile != null ? helpFile :
+                    buildStepDescriptor().getHelpFile(fieldName);
+        }
+
+        private static ZanataSyncStep.DescriptorImpl buildStepDescriptor() {
+            return Jenkins.getActiveInstance().getDescriptorByType(
+                    ZanataSyncStep.DescriptorImpl.class);
+        }
+
+        @SuppressWarnings("unused")
+        public ListBoxModel doFillZanataCredentialsIdItems(
+                @AncestorInPath Job context, @QueryParameter String remote,
+                @QueryParameter String credentialsId) {
+            return buildStepDescriptor().doFillZanataCredentialsIdItems(
+                    context, remote, credentialsId);
+        }
+
+        @SuppressWarnings("unused")
+        public ListBoxModel doFillPushCommitCredentialsIdItems(
+                @AncestorInPath Job context,
+                @QueryParameter String pushCommitCredentialsId) {
+            return buildStepDescriptor().doFillPushCommitCredentialsIdItems(
+                    context, pushCommitCredentialsId);
+        }
+
+        @SuppressWarnings("unused")
+        public ListBoxModel doFillSyncOptionItems(
+                @QueryParameter String selection) {
+            return buildStepDescriptor().doFillSyncOptionItems(selection);
+        }
+
+        @SuppressWarnings("unused")
+        public ListBoxModel doFillPullCacheItems(
+                @QueryParameter String selection) {
+            return buildStepDescriptor().doFillPullCacheItems(selection);
+        }
+
+        @SuppressWarnings("unused")
+        public FormValidation doCheckZanataCredentialsId(
+                @AncestorInPath AbstractProject context,
+                @QueryParameter String url, @QueryParameter String value) {
+            return buildStepDescriptor()
+                    .doCheckZanataCredentialsId(context, url, value);
+        }
+
+        @SuppressWarnings("unused")
+        public FormValidation doCheckConcurrency(@QueryParameter String value) {
+            return buildStepDescriptor().doCheckConcurrency(value);
+        }
+
+        @SuppressWarnings("unused")
+        public FormValidation doCheckZanataURL(@QueryParameter String value)
+                throws IOException, ServletException {
+            return buildStepDescriptor().doCheckZanataURL(value);
+        }
+    }
+}
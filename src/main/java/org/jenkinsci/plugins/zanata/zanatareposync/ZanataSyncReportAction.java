@@ -0,0 +1,104 @@
+/*
+ * Copyright 2017, Red Hat, Inc. and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jenkinsci.plugins.zanata.zanatareposync;
+
+import java.util.List;
+
+import org.jenkinsci.plugins.zanata.cli.SyncStatistics;
+
+import hudson.Util;
+import hudson.model.Run;
+import jenkins.model.RunAction2;
+
+/**
+ * Shows where Zanata sync of a build spent its time, per phase and per
+ * project config. Saved with the build so that
+ * {@link ZanataSyncTrendAction} can chart it across builds.
+ */
+public class ZanataSyncReportAction implements RunAction2 {
+    private final SyncStatistics statistics;
+    private transient Run<?, ?> run;
+
+    public ZanataSyncReportAction(SyncStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    public SyncStatistics getStatistics() {
+        return statistics;
+    }
+
+    public List<SyncStatistics.Entry> getEntries() {
+        return statistics.getEntries();
+    }
+
+    public SyncStatistics.Phase[] getPhases() {
+        return SyncStatistics.Phase.values();
+    }
+
+    public Run<?, ?> getRun() {
+        return run;
+    }
+
+    /**
+     * Used by jelly views.
+     */
+    public String formatMillis(long millis) {
+        return Util.getTimeSpanString(millis);
+    }
+
+    /**
+     * Used by jelly views.
+     */
+    public String formatBytes(long bytes) {
+        if (bytes < 1024) {
+            return bytes + " B";
+        }
+        if (bytes < 1024 * 1024) {
+            return String.format("%.1f KB", bytes / 1024.0);
+        }
+        return String.format("%.1f MB", bytes / (1024.0 * 1024));
+    }
+
+    @Override
+    public void onAttached(Run<?, ?> r) {
+        this.run = r;
+    }
+
+    @Override
+    public void onLoad(Run<?, ?> r) {
+        this.run = r;
+    }
+
+    @Override
+    public String getIconFileName() {
+        return "clock.png";
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "Zanata Sync Report";
+    }
+
+    @Override
+    public String getUrlName() {
+        return "zanataSyncReport";
+    }
+}
@@ -25,15 +25,27 @@ import java.io.IOException;
 import java.io.PrintStream;
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.util.logging.Handler;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Set;
 
+import javax.annotation.CheckForNull;
 import javax.servlet.ServletException;
 
 import org.apache.commons.lang.StringUtils;
+import org.eclipse.jgit.lib.Constants;
 import org.jenkinsci.plugins.gitclient.Git;
 import org.jenkinsci.plugins.zanata.cli.HasSyncJobDetail;
+import org.jenkinsci.plugins.zanata.cli.SyncScope;
+import org.jenkinsci.plugins.zanata.cli.SyncJobContext;
+import org.jenkinsci.plugins.zanata.cli.SyncStatistics;
 import org.jenkinsci.plugins.zanata.cli.service.impl.ZanataSyncServiceImpl;
+import org.jenkinsci.plugins.zanata.cli.util.LogRouter;
+import org.jenkinsci.plugins.zanata.cli.util.PushPullOptionsUtil;
 import org.jenkinsci.plugins.zanata.git.GitSyncService;
+import org.jenkinsci.plugins.zanata.metrics.ZanataMetrics;
+import org.jenkinsci.plugins.zanata.webhook.ZanataWebhookScopeAction;
 import org.jenkinsci.remoting.RoleChecker;
 import org.kohsuke.stapler.AncestorInPath;
 import org.kohsuke.stapler.DataBoundConstructor;
@@ -48,10 +60,13 @@ import com.cloudbees.plugins.credentials.common.PasswordCredentials;
 import com.cloudbees.plugins.credentials.common.StandardUsernameCredentials;
 import com.cloudbees.plugins.credentials.common.StandardUsernameListBoxModel;
 import com.cloudbees.plugins.credentials.common.StandardUsernamePasswordCredentials;
+import com.cloudbees.plugins.credentials.domains.DomainRequirement;
 import com.cloudbees.plugins.credentials.domains.URIRequirementBuilder;
 import com.google.common.base.Strings;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 
-import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import hudson.AbortException;
 import hudson.EnvVars;
 import hudson.Extension;
@@ -59,8 +74,10 @@ import hudson.FilePath;
 import hudson.Launcher;
 import hudson.Util;
 import hudson.model.AbstractProject;
+import hudson.model.Computer;
 import hudson.model.Item;
 import hudson.model.Job;
+import hudson.model.Node;
 import hudson.model.Queue;
 import hudson.model.Run;
 import hudson.model.TaskListener;
@@ -92,8 +109,18 @@ public class ZanataSyncStep extends Builder implements SimpleBuildStep,
     private boolean pushToZanata;
     private boolean pullFromZanata;
     private String zanataCredentialsId;
-    private String zanataUsername;
-    private String zanataSecret;
+    // no longer used (resolved per build into SyncJobContext). Kept so that
+    // configs saved by older versions load without complaint.
+    @Deprecated
+    private transient String zanataUsername;
+    @Deprecated
+    private transient String zanataSecret;
+    private int concurrency;
+    private boolean incrementalPush;
+    private String pullCache;
+    private boolean pushCommit;
+    private String pushCommitBranch;
+    private String pushCommitCredentialsId;
 
     // Fields in config.jelly must match the parameter names in the "DataBoundConstructor"
     @DataBoundConstructor
@@ -105,6 +132,8 @@ public class ZanataSyncStep extends Builder implements SimpleBuildStep,
         this.zanataLocaleIds = null;
         this.pushToZanata = true;
         this.pullFromZanata = true;
+        this.concurrency = 1;
+        this.pullCache = PULL_CACHE_WORKSPACE;
     }
 
     /**
@@ -138,14 +167,22 @@ public class ZanataSyncStep extends Builder implements SimpleBuildStep,
         return pullFromZanata;
     }
 
+    /**
+     * @return always null. Credentials are resolved for each build, see
+     * {@link SyncJobContext}.
+     */
     @Override
     public String getZanataUsername() {
-        return zanataUsername;
+        return null;
     }
 
+    /**
+     * @return always null. Credentials are resolved for each build, see
+     * {@link SyncJobContext}.
+     */
     @Override
     public String getZanataSecret() {
-        return zanataSecret;
+        return null;
     }
 
     @Override
@@ -153,6 +190,36 @@ public class ZanataSyncStep extends Builder implements SimpleBuildStep,
         return zanataCredentialsId;
     }
 
+    @Override
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    @Override
+    public boolean isIncrementalPush() {
+        return incrementalPush;
+    }
+
+    @Override
+    public String getPullCache() {
+        return pullCache;
+    }
+
+    @Override
+    public boolean isPushCommit() {
+        return pushCommit;
+    }
+
+    @Override
+    public String getPushCommitBranch() {
+        return pushCommitBranch;
+    }
+
+    @Override
+    public String getPushCommitCredentialsId() {
+        return pushCommitCredentialsId;
+    }
+
     @DataBoundSetter
     public void setZanataURL(String zanataURL) {
         this.zanataURL = zanataURL;
@@ -183,120 +250,298 @@ public class ZanataSyncStep extends Builder implements SimpleBuildStep,
         this.pullFromZanata = pullFromZanata;
     }
 
+    @DataBoundSetter
+    public void setConcurrency(int concurrency) {
+        this.concurrency = concurrency;
+    }
+
+    @DataBoundSetter
+    public void setIncrementalPush(boolean incrementalPush) {
+        this.incrementalPush = incrementalPush;
+    }
+
+    @DataBoundSetter
+    public void setPullCache(String pullCache) {
+        this.pullCache = pullCache;
+    }
+
+    @DataBoundSetter
+    public void setPushCommit(boolean pushCommit) {
+        this.pushCommit = pushCommit;
+    }
+
+    @DataBoundSetter
+    public void setPushCommitBranch(String pushCommitBranch) {
+        this.pushCommitBranch = Util.fixEmptyAndTrim(pushCommitBranch);
+    }
+
+    @DataBoundSetter
+    public void setPushCommitCredentialsId(String pushCommitCredentialsId) {
+        this.pushCommitCredentialsId =
+                Util.fixEmptyAndTrim(pushCommitCredentialsId);
+    }
+
     @Override
     public void perform(Run<?, ?> build, FilePath workspace, Launcher launcher, TaskListener listener)
             throws IOException {
         // This is where you 'build' the project.
+        sync(this, pushToZanata, pullFromZanata, build, workspace, null,
+                listener);
+    }
 
+    /**
+     * Runs a Zanata sync for the given job config. Shared by this build step
+     * and {@link ZanataSyncPipelineStep}.
+     *
+     * @param env
+     *         environment of the build, or null to get it from the build
+     */
+    static void sync(HasSyncJobDetail config, boolean push, boolean pull,
+            Run<?, ?> build, FilePath workspace, @CheckForNull EnvVars env,
+            TaskListener listener) throws IOException {
+        String zanataCredentialsId = config.getZanataCredentialsId();
         StandardUsernameCredentials cred = CredentialsProvider.findCredentialById(zanataCredentialsId, StandardUsernameCredentials.class, build);
         if (cred == null) {
             throw new AbortException("credential with ID [" + zanataCredentialsId + "] can not be found.");
         }
         CredentialsProvider.track(build, cred);
         String apiKey = getAPIKeyOrThrow(cred);
-        this.zanataUsername = cred.getUsername();
-        this.zanataSecret = apiKey;
-        if (!Strings.isNullOrEmpty(zanataURL)) {
-            logger(listener).println("Running Zanata sync for:" + zanataURL);
+        // the job config may be used by several builds at the same time so
+        // everything for this build goes into its own context
+        SyncJobContext context =
+                new SyncJobContext(config, cred.getUsername(), apiKey);
+        if (!Strings.isNullOrEmpty(context.getZanataURL())) {
+            logger(listener).println("Running Zanata sync for:" + context.getZanataURL());
         }
 
-        logger(listener).println("Job config: " + this.describeSyncJob());
+        logger(listener).println("Job config: " + context.describeSyncJob());
 
+        SyncScope pullScope = pullScope(build);
+        if (!pullScope.isEverything()) {
+            logger(listener).println("Pull is restricted by webhook to: " + pullScope);
+        }
         ZanataSyncServiceImpl zanataSyncService =
-                new ZanataSyncServiceImpl(this);
+                new ZanataSyncServiceImpl(context, pullScope);
 
 
+        if (!push && !pull) {
+            logger(listener).println("Both push and pull are disabled. Nothing to do.");
+            return;
+        }
         try {
-            if (pushToZanata) {
-                pushToZanata(workspace, zanataSyncService, listener);
-            }
-            if (pullFromZanata) {
+            GitSyncService gitSyncService = null;
+            String pullCacheDir = null;
+            String pushCommitBranch = null;
+            if (pull) {
                 Git git =
                         Git.with(listener, new EnvVars(EnvVars.masterEnvVars));
-                GitSyncService
-                        gitSyncService = new GitSyncService(this, git);
-                pullFromZanata(workspace, zanataSyncService, gitSyncService, listener);
-            }
-            if (!pushToZanata && !pullFromZanata) {
-                logger(listener).println("Both push and pull are disabled. Nothing to do.");
+                pullCacheDir = pullCacheDir(context, build, workspace, listener);
+                pushCommitBranch = pushCommitBranch(context,
+                        env == null ? build.getEnvironment(listener) : env);
+                gitSyncService = new GitSyncService(context, git,
+                        pushCommitBranch == null ? null :
+                                pushCredentials(context, build));
             }
+            // one round trip to the node for push, pull and commit
+            SyncStatistics statistics = workspace.act(new SyncCallable(
+                    zanataSyncService, push, gitSyncService,
+                    pullCacheDir, pushCommitBranch, listener));
+            addReport(build, statistics);
+            ZanataMetrics.get().recordSync(statistics);
         } catch (IOException | InterruptedException e) {
             logger(listener).println("Zanata Sync failed:" + e.getMessage());
             throw new RuntimeException(e);
         }
     }
 
-    private static String getAPIKeyOrThrow(StandardUsernameCredentials cred) {
-        if (cred instanceof PasswordCredentials) {
-            return ((PasswordCredentials) cred).getPassword().getPlainText();
+    private static void addReport(Run<?, ?> build,
+            SyncStatistics statistics) {
+        ZanataSyncReportAction report =
+                build.getAction(ZanataSyncReportAction.class);
+        if (report == null) {
+            build.addAction(new ZanataSyncReportAction(statistics));
+        } else {
+            // more than one Zanata sync step in the build
+            report.getStatistics().addAll(statistics);
         }
-        throw new RuntimeException("can not get Zanata API key from credential with id:" + cred.getId());
     }
 
-    @SuppressFBWarnings("LG_LOST_LOGGER_DUE_TO_WEAK_REFERENCE")
-    private static Handler configLogger(PrintStream printStream) {
-        ZanataCLILoggerHandler loggerHandler =
-                new ZanataCLILoggerHandler(printStream);
+    /**
+     * @return snapshot of the credentials to push translation commit with
+     * (to be sent to the node), or null if none are configured
+     */
+    @CheckForNull
+    private static StandardUsernameCredentials pushCredentials(
+            HasSyncJobDetail context, Run<?, ?> build)
+            throws AbortException {
+        String credentialsId = context.getPushCommitCredentialsId();
+        if (Strings.isNullOrEmpty(credentialsId)) {
+            return null;
+        }
+        StandardUsernameCredentials cred = CredentialsProvider
+                .findCredentialById(credentialsId,
+                        StandardUsernameCredentials.class, build);
+        if (cred == null) {
+            throw new AbortException("credential with ID [" + credentialsId + "] can not be found.");
+        }
+        CredentialsProvider.track(build, cred);
+        return CredentialsProvider.snapshot(StandardUsernameCredentials.class,
+                cred);
+    }
 
-        java.util.logging.Logger.getLogger("org.zanata").addHandler(loggerHandler);
-        return loggerHandler;
+    private static SyncScope pullScope(Run<?, ?> build) {
+        ZanataWebhookScopeAction scopeAction =
+                build.getAction(ZanataWebhookScopeAction.class);
+        return scopeAction == null ? SyncScope.EVERYTHING :
+                scopeAction.getScope();
     }
 
-    private static void removeLogger(Handler handler) {
-        if (handler != null) {
-            java.util.logging.Logger.getLogger("org.zanata").removeHandler(handler);
+    private static String getAPIKeyOrThrow(StandardUsernameCredentials cred) {
+        if (cred instanceof PasswordCredentials) {
+            return ((PasswordCredentials) cred).getPassword().getPlainText();
         }
+        throw new RuntimeException("can not get Zanata API key from credential with id:" + cred.getId());
     }
 
-    private static void pullFromZanata(FilePath workspace,
-            final ZanataSyncServiceImpl service, GitSyncService gitSyncService,
-            TaskListener listener)
+    /**
+     * @return remote path of the pull cache dir or null if pull cache is
+     * disabled
+     */
+    private static String pullCacheDir(HasSyncJobDetail context,
+            Run<?, ?> build, FilePath workspace, TaskListener listener)
             throws IOException, InterruptedException {
-        workspace.act(new FilePath.FileCallable<Void>() {
-
-            @Override
-            public Void invoke(File f, VirtualChannel channel)
-                    throws IOException, InterruptedException {
-                Handler handler = null;
-                try {
-                    handler = configLogger(listener.getLogger());
-                    service.pullFromZanata(f.toPath());
-                    gitSyncService.syncTranslationToRepo(f.toPath());
-                } finally {
-                    removeLogger(handler);
-                }
-                return null;
+        String pullCache = context.getPullCache();
+        if (PULL_CACHE_NODE.equals(pullCache)) {
+            Computer computer = workspace.toComputer();
+            Node node = computer == null ? null : computer.getNode();
+            FilePath nodeRoot = node == null ? null : node.getRootPath();
+            if (nodeRoot != null) {
+                // survives workspace wipe out but not shared between jobs,
+                // nor between workspaces of concurrent builds
+                FilePath cacheDir = nodeRoot.child("zanata-cache")
+                        .child(build.getParent().getFullName())
+                        .child(Util.getDigestOf(workspace.getRemote())
+                                .substring(0, 8));
+                logger(listener).println("Using pull cache on node: " + cacheDir.getRemote());
+                return cacheDir.getRemote();
             }
+            logger(listener).println("Can not determine node root. Using pull cache in workspace.");
+            return workspace.child(ZanataSyncServiceImpl.WORKSPACE_PULL_CACHE).getRemote();
+        }
+        if (Strings.isNullOrEmpty(pullCache) || PULL_CACHE_NONE.equals(pullCache)) {
+            return null;
+        }
+        return workspace.child(ZanataSyncServiceImpl.WORKSPACE_PULL_CACHE).getRemote();
+    }
 
-            @Override
-            public void checkRoles(RoleChecker roleChecker)
-                    throws SecurityException {
-            }
-        });
+    /**
+     * @return branch to push translation commit to, empty string for current
+     * branch, or null if translation commit should not be pushed
+     */
+    private static String pushCommitBranch(HasSyncJobDetail context,
+            EnvVars env) {
+        if (!context.isPushCommit()) {
+            return null;
+        }
+        String pushCommitBranch = context.getPushCommitBranch();
+        if (!Strings.isNullOrEmpty(pushCommitBranch)) {
+            return pushCommitBranch;
+        }
+        // set by git plugin, e.g. origin/master
+        String gitBranch = env.get("GIT_BRANCH");
+        if (Strings.isNullOrEmpty(gitBranch)) {
+            return "";
+        }
+        String prefix = Constants.DEFAULT_REMOTE_NAME + "/";
+        return gitBranch.startsWith(prefix) ?
+                gitBranch.substring(prefix.length()) : gitBranch;
     }
 
-    private static void pushToZanata(FilePath workspace,
-            final ZanataSyncServiceImpl service, TaskListener listener)
-            throws IOException, InterruptedException {
-        workspace.act(new FilePath.FileCallable<Void>() {
-            @Override
-            public Void invoke(File f, VirtualChannel channel)
-                    throws IOException, InterruptedException {
-                Handler handler = null;
-                try {
-                    handler = configLogger(listener.getLogger());
-                    service.pushToZanata(f.toPath());
-                } finally {
-                    removeLogger(handler);
+    /**
+     * Runs push, pull and git commit on the node the workspace is on. The
+     * services are serialized once and progress is printed to the listener
+     * as it goes.
+     */
+    private static class SyncCallable
+            implements FilePath.FileCallable<SyncStatistics> {
+        private static final long serialVersionUID = 1L;
+        // one lock per work tree in this JVM. Gone once nobody holds it.
+        private static final LoadingCache<Path, Object> GIT_LOCKS =
+                CacheBuilder.newBuilder().weakValues()
+                        .build(new CacheLoader<Path, Object>() {
+                            @Override
+                            public Object load(Path workTree) {
+                                return new Object();
+                            }
+                        });
+        private final ZanataSyncServiceImpl service;
+        private final boolean push;
+        // null if pull is disabled
+        private final GitSyncService gitSyncService;
+        private final String pullCacheDir;
+        private final String pushCommitBranch;
+        private final TaskListener listener;
+
+        SyncCallable(ZanataSyncServiceImpl service, boolean push,
+                GitSyncService gitSyncService, String pullCacheDir,
+                String pushCommitBranch, TaskListener listener) {
+            this.service = service;
+            this.push = push;
+            this.gitSyncService = gitSyncService;
+            this.pullCacheDir = pullCacheDir;
+            this.pushCommitBranch = pushCommitBranch;
+            this.listener = listener;
+        }
+
+        @Override
+        public SyncStatistics invoke(File f, VirtualChannel channel)
+                throws IOException, InterruptedException {
+            SyncStatistics statistics = service.getStatistics();
+            try (LogRouter.Route route = LogRouter.open(listener.getLogger())) {
+                Path repoBase = f.toPath();
+                if (push) {
+                    progress(route, "Pushing to Zanata");
+                    service.pushToZanata(repoBase);
                 }
-                return null;
+                if (gitSyncService != null) {
+                    progress(route, "Pulling from Zanata");
+                    Set<Path> transDirs = service.pullFromZanata(repoBase,
+                            pullCacheDir == null ? null :
+                                    Paths.get(pullCacheDir));
+                    // parallel pipeline branches may sync the same workspace
+                    synchronized (GIT_LOCKS.getUnchecked(
+                            repoBase.toAbsolutePath().normalize())) {
+                        long start = System.currentTimeMillis();
+                        boolean committed = gitSyncService
+                                .syncTranslationToRepo(repoBase, transDirs);
+                        statistics.record(SyncStatistics.Phase.GIT_COMMIT,
+                                System.currentTimeMillis() - start);
+                        if (committed && pushCommitBranch != null) {
+                            progress(route, "Pushing translation commit");
+                            start = System.currentTimeMillis();
+                            gitSyncService.pushTranslationCommit(repoBase,
+                                    Strings.emptyToNull(pushCommitBranch));
+                            statistics.record(SyncStatistics.Phase.GIT_PUSH,
+                                    System.currentTimeMillis() - start);
+                        }
+                    }
+                }
+            } finally {
+                PushPullOptionsUtil.closeUnusedRestClientFactories();
             }
+            return statistics;
+        }
 
-            @Override
-            public void checkRoles(RoleChecker roleChecker)
-                    throws SecurityException {
-            }
-        });
+        private void progress(LogRouter.Route route, String message) {
+            // keep buffered CLI output ahead of the progress line
+            route.flush();
+            logger(listener).println(message);
+        }
+
+        @Override
+        public void checkRoles(RoleChecker roleChecker)
+                throws SecurityException {
+        }
     }
 
     private static PrintStream logger(TaskListener listener) {
@@ -338,6 +583,22 @@ public class ZanataSyncStep extends Builder implements SimpleBuildStep,
                     .includeCurrentValue(credentialsId);
         }
 
+        @SuppressWarnings("unused")
+        public ListBoxModel doFillPushCommitCredentialsIdItems(@AncestorInPath
+                Job context,
+                @QueryParameter String pushCommitCredentialsId) {
+            if (context == null || !context.hasPermission(Item.CONFIGURE)) {
+                return new StandardUsernameListBoxModel()
+                        .includeCurrentValue(pushCommitCredentialsId);
+            }
+            // username/password for https or SSH key
+            return new StandardUsernameListBoxModel()
+                    .includeEmptyValue()
+                    .includeAs(Tasks.getAuthenticationOf((Queue.Task) context), context, StandardUsernameCredentials.class,
+                            Collections.<DomainRequirement>emptyList())
+                    .includeCurrentValue(pushCommitCredentialsId);
+        }
+
         @SuppressWarnings("unused")
         public ListBoxModel doFillSyncOptionItems(
                 @QueryParameter String selection) {
@@ -350,6 +611,18 @@ public class ZanataSyncStep extends Builder implements SimpleBuildStep,
 
         }
 
+        @SuppressWarnings("unused")
+        public ListBoxModel doFillPullCacheItems(
+                @QueryParameter String selection) {
+            return new ListBoxModel(
+                    new ListBoxModel.Option("workspace", PULL_CACHE_WORKSPACE,
+                            PULL_CACHE_WORKSPACE.equals(selection)),
+                    new ListBoxModel.Option("node", PULL_CACHE_NODE,
+                            PULL_CACHE_NODE.equals(selection)),
+                    new ListBoxModel.Option("none", PULL_CACHE_NONE,
+                            PULL_CACHE_NONE.equals(selection)));
+        }
+
         @SuppressWarnings("unused")
         public FormValidation doCheckZanataCredentialsId(@AncestorInPath AbstractProject context,
                 @QueryParameter String url,
@@ -385,6 +658,11 @@ public class ZanataSyncStep extends Builder implements SimpleBuildStep,
             return FormValidation.warning("Cannot find any credentials with id " + value);
         }
 
+        @SuppressWarnings("unused")
+        public FormValidation doCheckConcurrency(@QueryParameter String value) {
+            return FormValidation.validatePositiveInteger(value);
+        }
+
         /**
          * Performs on-the-fly validation of the form field 'zanataURL'.
          *
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2017, Red Hat, Inc. and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jenkinsci.plugins.zanata.zanatareposync;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+
+import org.jenkinsci.plugins.zanata.cli.SyncStatistics;
+import org.jfree.chart.ChartFactory;
+import org.jfree.chart.JFreeChart;
+import org.jfree.chart.axis.CategoryAxis;
+import org.jfree.chart.axis.CategoryLabelPositions;
+import org.jfree.chart.plot.CategoryPlot;
+import org.jfree.chart.plot.PlotOrientation;
+import org.jfree.ui.RectangleInsets;
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
+
+import hudson.Extension;
+import hudson.model.Action;
+import hudson.model.Job;
+import hudson.model.Run;
+import hudson.util.ChartUtil;
+import hudson.util.DataSetBuilder;
+import hudson.util.Graph;
+import hudson.util.ShiftedCategoryAxis;
+import jenkins.model.TransientActionFactory;
+
+/**
+ * Charts Zanata sync time per phase across recent builds of a job (shown on
+ * the job page), to help spotting e.g. a slow Zanata server.
+ */
+public class ZanataSyncTrendAction implements Action {
+    private static final int MAX_BUILDS = 30;
+    private final Job<?, ?> job;
+
+    public ZanataSyncTrendAction(Job<?, ?> job) {
+        this.job = job;
+    }
+
+    public Job<?, ?> getJob() {
+        return job;
+    }
+
+    public void doGraph(StaplerRequest req, StaplerResponse rsp)
+            throws IOException {
+        Run<?, ?> lastBuild = job.getLastBuild();
+        if (lastBuild == null) {
+            rsp.sendError(StaplerResponse.SC_NOT_FOUND);
+            return;
+        }
+        new Graph(lastBuild.getTimestamp(), 500, 200) {
+            @Override
+            protected JFreeChart createGraph() {
+                return createChart(buildDataSet());
+            }
+        }.doPng(req, rsp);
+    }
+
+    private DataSetBuilder<String, ChartUtil.NumberOnlyBuildLabel> buildDataSet() {
+        DataSetBuilder<String, ChartUtil.NumberOnlyBuildLabel> dataSet =
+                new DataSetBuilder<>();
+        // builds without sync are skipped but still count towards the limit
+        // so that a graph never loads the whole build history
+        for (Run<?, ?> run : job.getBuilds().limit(MAX_BUILDS)) {
+            ZanataSyncReportAction report =
+                    run.getAction(ZanataSyncReportAction.class);
+            if (report == null) {
+                continue;
+            }
+            ChartUtil.NumberOnlyBuildLabel label =
+                    new ChartUtil.NumberOnlyBuildLabel(run);
+            for (SyncStatistics.Phase phase : SyncStatistics.Phase.values()) {
+                dataSet.add(report.getStatistics().getMillis(phase) / 1000.0,
+                        phase.getDisplayName(), label);
+            }
+        }
+        return dataSet;
+    }
+
+    private static JFreeChart createChart(
+            DataSetBuilder<String, ChartUtil.NumberOnlyBuildLabel> dataSet) {
+        JFreeChart chart = ChartFactory.createStackedAreaChart(null, null,
+                "seconds", dataSet.build(), PlotOrientation.VERTICAL, true,
+                true, false);
+        chart.setBackgroundPaint(Color.white);
+
+        CategoryPlot plot = chart.getCategoryPlot();
+        plot.setBackgroundPaint(Color.WHITE);
+        plot.setOutlinePaint(null);
+        plot.setForegroundAlpha(0.8f);
+        plot.setRangeGridlinesVisible(true);
+        plot.setRangeGridlinePaint(Color.black);
+
+        CategoryAxis domainAxis = new ShiftedCategoryAxis(null);
+        plot.setDomainAxis(domainAxis);
+        domainAxis.setCategoryLabelPositions(CategoryLabelPositions.UP_90);
+        domainAxis.setLowerMargin(0.0);
+        domainAxis.setUpperMargin(0.0);
+        domainAxis.setCategoryMargin(0.0);
+        plot.setInsets(new RectangleInsets(0, 0, 0, 5.0));
+        return chart;
+    }
+
+    @Override
+    public String getIconFileName() {
+        // only shown as a graph on job page
+        return null;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "Zanata Sync Trend";
+    }
+
+    @Override
+    public String getUrlName() {
+        return "zanataSyncTrend";
+    }
+
+    /**
+     * Adds the trend to jobs whose last completed build ran Zanata sync.
+     * Only that build is looked at since actions are computed on every page
+     * view, and loading older builds would be too costly.
+     */
+    @Extension
+    public static class Factory extends TransientActionFactory<Job> {
+
+        @Override
+        public Class<Job> type() {
+            return Job.class;
+        }
+
+        @Override
+        public Collection<? extends Action> createFor(Job target) {
+            Run<?, ?> lastCompleted = target.getLastCompletedBuild();
+            if (lastCompleted != null && lastCompleted
+                    .getAction(ZanataSyncReportAction.class) != null) {
+                return Collections.singleton(new ZanataSyncTrendAction(target));
+            }
+            return Collections.emptyList();
+        }
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2017, Red Hat, Inc. and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jenkinsci.plugins.zanata.zanatareposync;
+
+import java.util.Collections;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.acegisecurity.context.SecurityContext;
+import org.acegisecurity.context.SecurityContextHolder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import hudson.Extension;
+import hudson.XmlFile;
+import hudson.model.Item;
+import hudson.model.Job;
+import hudson.model.Saveable;
+import hudson.model.listeners.ItemListener;
+import hudson.model.listeners.SaveableListener;
+import hudson.security.ACL;
+import jenkins.model.Jenkins;
+
+/**
+ * Index of jobs which accept Zanata webhook (i.e. have
+ * {@link ZanataWebhookProjectProperty}), by full name and by name. It is
+ * built when Jenkins loads all items and kept up to date as jobs are
+ * created, saved, moved, renamed or deleted, so that routing a webhook does
+ * not need to walk through all jobs.
+ */
+@Extension
+public class ZanataWebhookJobIndex extends ItemListener {
+    private static final Logger log =
+            LoggerFactory.getLogger(ZanataWebhookJobIndex.class);
+
+    private final Set<String> fullNames =
+            Collections.newSetFromMap(new ConcurrentHashMap<>());
+    // job name -> full names of the jobs with this name (in different folders)
+    private final ConcurrentMap<String, Set<String>> fullNamesByName =
+            new ConcurrentHashMap<>();
+
+    public static ZanataWebhookJobIndex get() {
+        return ItemListener.all().get(ZanataWebhookJobIndex.class);
+    }
+
+    /**
+     * @param jobName
+     *         full name or name of the job
+     * @return the job accepting Zanata webhook. Full name takes precedence.
+     */
+    public Optional<Job> find(String jobName) {
+        SecurityContext saveCtx = SecurityContextHolder.getContext();
+        try {
+            ACL.impersonate(ACL.SYSTEM);
+            if (fullNames.contains(jobName)) {
+                return resolve(jobName);
+            }
+            Set<String> candidates = fullNamesByName.get(jobName);
+            if (candidates == null) {
+                return Optional.empty();
+            }
+            if (candidates.size() > 1) {
+                log.warn("more than one job is named {}: {}", jobName,
+                        candidates);
+            }
+            return candidates.stream().sorted().map(this::resolve)
+                    .filter(Optional::isPresent).map(Optional::get)
+                    .findFirst();
+        } finally {
+            SecurityContextHolder.setContext(saveCtx);
+        }
+    }
+
+    private Optional<Job> resolve(String fullName) {
+        Jenkins jenkins = Jenkins.getInstance();
+        Job job = jenkins == null ? null :
+                jenkins.getItemByFullName(fullName, Job.class);
+        if (acceptsWebhook(job)) {
+            return Optional.of(job);
+        }
+        // e.g. deleted together with its folder
+        remove(fullName);
+        return Optional.empty();
+    }
+
+    private static boolean acceptsWebhook(Item item) {
+        return item instanceof Job && ((Job<?, ?>) item)
+                .getProperty(ZanataWebhookProjectProperty.class) != null;
+    }
+
+    synchronized void reindex(Item item) {
+        if (acceptsWebhook(item)) {
+            fullNames.add(item.getFullName());
+            fullNamesByName.computeIfAbsent(item.getName(),
+                    name -> Collections.newSetFromMap(new ConcurrentHashMap<>()))
+                    .add(item.getFullName());
+        } else {
+            remove(item.getFullName());
+        }
+    }
+
+    private synchronized void remove(String fullName) {
+        if (fullNames.remove(fullName)) {
+            String name = fullName.substring(fullName.lastIndexOf('/') + 1);
+            Set<String> sameName = fullNamesByName.get(name);
+            if (sameName != null) {
+                sameName.remove(fullName);
+                if (sameName.isEmpty()) {
+                    fullNamesByName.remove(name);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void onLoaded() {
+        Jenkins jenkins = Jenkins.getInstance();
+        if (jenkins == null) {
+            return;
+        }
+        synchronized (this) {
+            fullNames.clear();
+            fullNamesByName.clear();
+            SecurityContext saveCtx = SecurityContextHolder.getContext();
+            try {
+                ACL.impersonate(ACL.SYSTEM);
+                jenkins.getAllItems(Job.class).forEach(this::reindex);
+            } finally {
+                SecurityContextHolder.setContext(saveCtx);
+            }
+        }
+        log.info("{} job(s) accept Zanata webhook", fullNames.size());
+    }
+
+    @Override
+    public void onCreated(Item item) {
+        reindex(item);
+    }
+
+    @Override
+    public void onCopied(Item src, Item item) {
+        reindex(item);
+    }
+
+    @Override
+    public void onUpdated(Item item) {
+        reindex(item);
+    }
+
+    @Override
+    public void onDeleted(Item item) {
+        remove(item.getFullName());
+    }
+
+    @Override
+    public void onLocationChanged(Item item, String oldFullName,
+            String newFullName) {
+        // also fired for jobs inside a renamed or moved folder
+        remove(oldFullName);
+        reindex(item);
+    }
+
+    /**
+     * Picks up property changes which are saved without going through job
+     * configuration page (e.g. {@link Job#addProperty}).
+     */
+    @Extension
+    public static class JobSaveListener extends SaveableListener {
+        @Override
+        public void onChange(Saveable o, XmlFile file) {
+            if (o instanceof Job) {
+                ZanataWebhookJobIndex index = get();
+                if (index != null) {
+                    index.reindex((Job) o);
+                }
+            }
+        }
+    }
+}
@@ -22,12 +22,12 @@ package org.jenkinsci.plugins.zanata.zanatareposync;
 
 import java.io.IOException;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
-import org.acegisecurity.context.SecurityContext;
-import org.acegisecurity.context.SecurityContextHolder;
-import org.apache.commons.io.IOUtils;
-import org.jenkinsci.plugins.zanata.webhook.HmacUtil;
+import org.jenkinsci.plugins.zanata.metrics.ZanataMetrics;
 import org.jenkinsci.plugins.zanata.webhook.Processor;
+import org.jenkinsci.plugins.zanata.webhook.WebhookIntakeQueue;
+import org.jenkinsci.plugins.zanata.webhook.WebhookPayload;
 import org.jenkinsci.plugins.zanata.webhook.WebhookResult;
 import org.kohsuke.stapler.StaplerRequest;
 import org.kohsuke.stapler.StaplerResponse;
@@ -38,7 +38,6 @@ import com.google.common.base.Strings;
 import hudson.Extension;
 import hudson.model.Job;
 import hudson.model.UnprotectedRootAction;
-import hudson.security.ACL;
 import hudson.util.Secret;
 import jenkins.model.Jenkins;
 import net.sf.json.JSONObject;
@@ -51,9 +50,6 @@ import net.sf.json.JSONObject;
 public class ZanataWebhookJobTrigger implements UnprotectedRootAction {
     private static final org.slf4j.Logger log =
             LoggerFactory.getLogger(ZanataWebhookJobTrigger.class);
-    private static final String DEFAULT_CHARSET = "UTF-8";
-    private Jenkins jenkins = Jenkins.getInstance();
-    private StaplerResponse resp;
 
     @Override
     public String getDisplayName() {
@@ -79,122 +75,154 @@ public class ZanataWebhookJobTrigger implements UnprotectedRootAction {
     @SuppressWarnings("unused")
     public void doIndex(StaplerRequest req, StaplerResponse rsp)
             throws IOException {
-        this.resp = rsp;
+        long start = System.nanoTime();
+        try {
+            receive(req, rsp);
+        } finally {
+            ZanataMetrics.get().time(ZanataMetrics.WEBHOOK_LATENCY,
+                    System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
 
+    private void receive(StaplerRequest req, StaplerResponse rsp)
+            throws IOException {
         String jobName = req.getParameter("job");
         if (Strings.isNullOrEmpty(jobName)) {
-            exitWebHook(new WebhookResult(404, "Parameter 'job' is missing or no value assigned."));
+            exitWebHook(rsp, new WebhookResult(404, "Parameter 'job' is missing or no value assigned."));
             return;
         }
 
-        // Get the POST stream
-        String body = IOUtils.toString(req.getInputStream(), DEFAULT_CHARSET);
-        if (body.isEmpty()
-                || !req.getRequestURI().contains("/".concat(ZanataWebhookProjectProperty.DescriptorImpl.URL_PATH).concat("/"))) {
-            exitWebHook(new WebhookResult(404, "No payload or URI contains invalid entries."));
+        if (!req.getRequestURI().contains("/".concat(ZanataWebhookProjectProperty.DescriptorImpl.URL_PATH).concat("/"))) {
+            exitWebHook(rsp, new WebhookResult(404, "No payload or URI contains invalid entries."));
             return;
         }
 
         String contentType = req.getContentType();
         if (contentType == null || !contentType.startsWith("application/json")) {
-            exitWebHook(new WebhookResult(415, "Only Accept JSON payload."));
+            exitWebHook(rsp, new WebhookResult(415, "Only Accept JSON payload."));
             return;
         }
 
-        JSONObject payload = JSONObject.fromObject(body);
+        int maxBytes = WebhookPayload.MAX_BYTES;
+        if (req.getContentLength() > maxBytes) {
+            exitWebHook(rsp, new WebhookResult(413,
+                    "Payload is larger than " + maxBytes + " bytes."));
+            return;
+        }
 
         Secret secretDefinedInJob = null;
-        SecurityContext saveCtx = SecurityContextHolder.getContext();
-
-        Optional<Job> foundJob;
-        try {
-            ACL.impersonate(ACL.SYSTEM);
-            foundJob = jenkins.getAllItems(Job.class).stream()
-                    .filter(job -> job.getName().equals(jobName) && job.isBuildable())
-                    .findFirst();
-            if (foundJob.isPresent()) {
-                final ZanataWebhookProjectProperty property =
-                        (ZanataWebhookProjectProperty) foundJob.get()
-                                .getProperty(
-                                        ZanataWebhookProjectProperty.class);
-                if (property != null) {
-                    secretDefinedInJob = property.getZanataWebhookSecret();
-                }
+        int debounceSeconds = 0;
+        Optional<Job> foundJob = ZanataWebhookJobIndex.get().find(jobName)
+                .filter(Job::isBuildable);
+        if (foundJob.isPresent()) {
+            final ZanataWebhookProjectProperty property =
+                    (ZanataWebhookProjectProperty) foundJob.get()
+                            .getProperty(ZanataWebhookProjectProperty.class);
+            if (property != null) {
+                secretDefinedInJob = property.getZanataWebhookSecret();
+                debounceSeconds = property.getDebounceSeconds();
             }
+        }
 
-        } finally {
-            SecurityContextHolder.setContext(saveCtx);
+        // Get the POST stream. Signature is computed while reading.
+        WebhookPayload payload;
+        try {
+            payload = WebhookPayload.read(req.getInputStream(), maxBytes,
+                    isNullOrEmpty(secretDefinedInJob) ? null :
+                            secretDefinedInJob.getPlainText(),
+                    req.getRequestURI());
+        } catch (WebhookPayload.TooLargeException e) {
+            exitWebHook(rsp, new WebhookResult(413,
+                    "Payload is larger than " + maxBytes + " bytes."));
+            return;
+        }
+        if (payload.isEmpty()) {
+            exitWebHook(rsp, new WebhookResult(404, "No payload or URI contains invalid entries."));
+            return;
         }
 
         if (!foundJob.isPresent()) {
             String msg = String.format("Job '%s' is not defined in Jenkins or is not buildable",
                     jobName);
             log.warn(msg);
-            exitWebHook(new WebhookResult(404, msg));
+            exitWebHook(rsp, new WebhookResult(404, msg));
             return;
         }
 
         // Get X-Zanata-Webhook for security check
         String webhookSHA = req.getHeader("X-Zanata-Webhook");
 
-        if (noWebhookSecret(secretDefinedInJob, webhookSHA)
-                || webhookSHAMatchesSecret(secretDefinedInJob, payload, req.getRequestURI(),
-                        webhookSHA)) {
-            Processor payloadProcessor = new Processor(Jenkins.getInstance(), foundJob.get());
-            WebhookResult result =
-                    payloadProcessor.triggerJobs(jobName, req.getRemoteHost(), payload);
-            exitWebHook(result);
+        if (payload.signatureMatches(webhookSHA)) {
+            Processor payloadProcessor = new Processor(Jenkins.getInstance(),
+                    foundJob.get(), debounceSeconds);
+            String remoteHost = req.getRemoteHost();
+            boolean accepted = WebhookIntakeQueue.get().offer(() -> {
+                // JSON is parsed here rather than on the request thread
+                WebhookResult result = payloadProcessor
+                        .triggerJobs(jobName, remoteHost, payload.getJson());
+                log.info("webhook for job {}: {}", jobName,
+                        result.getMessage());
+            });
+            if (accepted) {
+                exitWebHook(rsp, new WebhookResult(202,
+                        String.format("Job '%s' will be triggered", jobName)));
+            } else {
+                rsp.setHeader("Retry-After", "30");
+                exitWebHook(rsp, new WebhookResult(503,
+                        "Too many webhooks waiting to be processed. Try again later."));
+            }
         } else {
-            exitWebHook(new WebhookResult(403, "Incorrect webhook secret"));
+            exitWebHook(rsp, new WebhookResult(403, "Incorrect webhook secret"));
         }
 
     }
 
-    private static boolean noWebhookSecret(Secret secretDefinedInJob,
-            String webhookSHA) {
-        return isNullOrEmpty(secretDefinedInJob)
-                && Strings.isNullOrEmpty(webhookSHA);
-    }
-
     private static boolean isNullOrEmpty(Secret secretDefinedInJob) {
         return secretDefinedInJob == null
                 || Strings.isNullOrEmpty(secretDefinedInJob.getPlainText());
     }
 
-    private static boolean webhookSHAMatchesSecret(Secret secretDefinedInJob,
-            JSONObject jsonObject, String requestURI, String webhookSHA) {
-        if (isNullOrEmpty(secretDefinedInJob)) {
-            return true;
-        }
-        String valueToDigest = jsonObject.toString() + requestURI;
-        try {
-            String secretText = secretDefinedInJob.getPlainText();
-            String expectedHash = HmacUtil
-                    .hmacSha1(secretText, HmacUtil
-                            .hmacSha1(secretText, valueToDigest));
-            return expectedHash.equals(webhookSHA);
-        } catch (IllegalArgumentException e) {
-            log.error("Unable to generate hmac sha1");
-            throw new IllegalArgumentException(e);
-        }
+    /**
+     * Reports how many accepted webhooks are waiting to be processed.
+     */
+    @SuppressWarnings("unused")
+    public void doStatus(StaplerRequest req, StaplerResponse rsp)
+            throws IOException {
+        Jenkins.getActiveInstance().checkPermission(Jenkins.READ);
+        WebhookIntakeQueue queue = WebhookIntakeQueue.get();
+        JSONObject json = new JSONObject();
+        json.put("queueDepth", queue.getQueueDepth());
+        json.put("queueCapacity", queue.getCapacity());
+        json.put("activeCount", queue.getActiveCount());
+        rsp.setStatus(200);
+        rsp.addHeader("Content-Type", "application/json");
+        rsp.getWriter().print(json.toString());
     }
 
     /**
      * Exit the WebHook.
      *
+     * @param rsp
+     *            response of current request
      * @param result
      *            Zanata webhook result
      */
-    private void exitWebHook(WebhookResult result) throws IOException {
-        if (result.getStatus() != 200) {
+    private static void exitWebHook(StaplerResponse rsp, WebhookResult result)
+            throws IOException {
+        boolean successful = result.getStatus() < 300;
+        if (!successful) {
             log.warn(result.getMessage());
         }
+        ZanataMetrics metrics = ZanataMetrics.get();
+        metrics.count(successful ? ZanataMetrics.WEBHOOK_ACCEPTED :
+                ZanataMetrics.WEBHOOK_REJECTED);
+        metrics.count(ZanataMetrics.WEBHOOK_STATUS + result.getStatus());
         JSONObject json = new JSONObject();
-        json.put("result", result.getStatus() == 200 ? "OK" : "ERROR");
+        json.put("result", successful ? "OK" : "ERROR");
         json.put("message", result.getMessage());
-        resp.setStatus(result.getStatus());
-        resp.addHeader("Content-Type", "application/json");
-        resp.getWriter().print(json.toString());
+        rsp.setStatus(result.getStatus());
+        rsp.addHeader("Content-Type", "application/json");
+        rsp.getWriter().print(json.toString());
     }
 
 }
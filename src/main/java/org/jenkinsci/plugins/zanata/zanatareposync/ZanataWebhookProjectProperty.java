@@ -24,6 +24,8 @@ import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
 
 import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+import org.kohsuke.stapler.QueryParameter;
 import org.kohsuke.stapler.StaplerRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -34,6 +36,7 @@ import hudson.Extension;
 import hudson.model.Job;
 import hudson.model.JobProperty;
 import hudson.model.JobPropertyDescriptor;
+import hudson.util.FormValidation;
 import hudson.util.Secret;
 import jenkins.model.Jenkins;
 import net.sf.json.JSONObject;
@@ -47,6 +50,7 @@ public class ZanataWebhookProjectProperty extends JobProperty<Job<?, ?>> {
 
     private final Secret zanataWebhookSecret;
     private final String URLForWebhook;
+    private int debounceSeconds;
 
     @DataBoundConstructor
     public ZanataWebhookProjectProperty(Secret zanataWebhookSecret, String URLForWebhook) {
@@ -66,6 +70,19 @@ public class ZanataWebhookProjectProperty extends JobProperty<Job<?, ?>> {
         return URLForWebhook;
     }
 
+    /**
+     * @return seconds to wait for more webhooks before the job is built.
+     * Webhooks arriving in the meantime are merged into the same build.
+     */
+    public int getDebounceSeconds() {
+        return debounceSeconds;
+    }
+
+    @DataBoundSetter
+    public void setDebounceSeconds(int debounceSeconds) {
+        this.debounceSeconds = Math.max(0, debounceSeconds);
+    }
+
     @Extension
     public static final class DescriptorImpl extends JobPropertyDescriptor {
         public static final String ZANATA_WEBHOOK_PROJECT_BLOCK_NAME = "zanataWebhookProject";
@@ -100,6 +117,11 @@ public class ZanataWebhookProjectProperty extends JobProperty<Job<?, ?>> {
             }
         }
 
+        @SuppressWarnings("unused")
+        public FormValidation doCheckDebounceSeconds(@QueryParameter String value) {
+            return FormValidation.validateNonNegativeInteger(value);
+        }
+
         @Override
         public String getDisplayName() {
             return "Zanata Webhook property";
@@ -41,6 +41,17 @@ public class SyncJobDetail implements HasSyncJobDetail {
 
     private String zanataProjectConfigs;
 
+    private int concurrency;
+
+    private boolean incrementalPush;
+
+    private String pullCache;
+
+    private boolean pushCommit;
+
+    private String pushCommitBranch;
+
+    private String pushCommitCredentialsId;
 
     @Override
     public String getZanataURL() {
@@ -77,6 +88,36 @@ public class SyncJobDetail implements HasSyncJobDetail {
         return zanataProjectConfigs;
     }
 
+    @Override
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    @Override
+    public boolean isIncrementalPush() {
+        return incrementalPush;
+    }
+
+    @Override
+    public String getPullCache() {
+        return pullCache;
+    }
+
+    @Override
+    public boolean isPushCommit() {
+        return pushCommit;
+    }
+
+    @Override
+    public String getPushCommitBranch() {
+        return pushCommitBranch;
+    }
+
+    @Override
+    public String getPushCommitCredentialsId() {
+        return pushCommitCredentialsId;
+    }
+
     @Override
     public String describeSyncJob() {
         return toString();
@@ -91,6 +132,12 @@ public class SyncJobDetail implements HasSyncJobDetail {
                 .add("syncOption", syncOption)
                 .add("zanataLocaleIds", zanataLocaleIds)
                 .add("zanataProjectConfigs", zanataProjectConfigs)
+                .add("concurrency", concurrency)
+                .add("incrementalPush", incrementalPush)
+                .add("pullCache", pullCache)
+                .add("pushCommit", pushCommit)
+                .add("pushCommitBranch", pushCommitBranch)
+                .add("pushCommitCredentialsId", pushCommitCredentialsId)
                 .toString();
     }
 
@@ -138,6 +185,31 @@ public class SyncJobDetail implements HasSyncJobDetail {
             return this;
         }
 
+        public Builder setConcurrency(int concurrency) {
+            syncJobDetail.concurrency = concurrency;
+            return this;
+        }
+
+        public Builder setIncrementalPush(boolean incrementalPush) {
+            syncJobDetail.incrementalPush = incrementalPush;
+            return this;
+        }
+
+        public Builder setPullCache(String pullCache) {
+            syncJobDetail.pullCache = pullCache;
+            return this;
+        }
+
+        public Builder setPushCommit(boolean pushCommit) {
+            syncJobDetail.pushCommit = pushCommit;
+            return this;
+        }
+
+        public Builder setPushCommitBranch(String pushCommitBranch) {
+            syncJobDetail.pushCommitBranch = pushCommitBranch;
+            return this;
+        }
+
         public SyncJobDetail build() {
             return syncJobDetail;
         }
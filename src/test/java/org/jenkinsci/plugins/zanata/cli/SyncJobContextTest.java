@@ -0,0 +1,45 @@
+package org.jenkinsci.plugins.zanata.cli;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.jenkinsci.plugins.zanata.zanatareposync.ZanataSyncStep;
+import org.junit.Test;
+
+public class SyncJobContextTest {
+
+    @Test
+    public void willCopyConfigAndKeepCredentialsOutOfIt() {
+        ZanataSyncStep step = new ZanataSyncStep("credId");
+        step.setZanataURL("https://zanata.example.com");
+        step.setConcurrency(4);
+        step.setPushCommit(true);
+        step.setPushCommitBranch("master");
+
+        SyncJobContext context =
+                new SyncJobContext(step, "admin", "secretKey");
+
+        assertThat(context.getZanataURL()).isEqualTo("https://zanata.example.com");
+        assertThat(context.getZanataCredentialsId()).isEqualTo("credId");
+        assertThat(context.getConcurrency()).isEqualTo(4);
+        assertThat(context.isPushCommit()).isTrue();
+        assertThat(context.getPushCommitBranch()).isEqualTo("master");
+        assertThat(context.getZanataUsername()).isEqualTo("admin");
+        assertThat(context.getZanataSecret()).isEqualTo("secretKey");
+        assertThat(context.toString()).doesNotContain("secretKey");
+        assertThat(step.getZanataUsername()).isNull();
+        assertThat(step.getZanataSecret()).isNull();
+    }
+
+    @Test
+    public void willNotSeeLaterChangesToConfig() {
+        ZanataSyncStep step = new ZanataSyncStep("credId");
+        step.setConcurrency(2);
+        SyncJobContext context = new SyncJobContext(step, "admin", "key");
+
+        step.setConcurrency(8);
+        step.setZanataURL("https://other.example.com");
+
+        assertThat(context.getConcurrency()).isEqualTo(2);
+        assertThat(context.getZanataURL()).isNull();
+    }
+}
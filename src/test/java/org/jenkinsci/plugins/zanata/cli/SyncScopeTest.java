@@ -0,0 +1,51 @@
+package org.jenkinsci.plugins.zanata.cli;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+
+public class SyncScopeTest {
+
+    @Test
+    public void scopeWithoutProjectIncludesEverything() {
+        SyncScope scope = SyncScope.of(null, "master", "");
+
+        assertThat(scope.isEverything()).isTrue();
+        assertThat(scope.includes("any", "version")).isTrue();
+    }
+
+    @Test
+    public void canRestrictToProjectVersionAndLocale() {
+        SyncScope scope = SyncScope.of("zanata-server", "master", "zh");
+
+        assertThat(scope.includes("zanata-server", "master")).isTrue();
+        assertThat(scope.includes("zanata-server", "release")).isFalse();
+        assertThat(scope.includes("zanata-client", "master")).isFalse();
+        assertThat(scope.getLocales()).containsOnly("zh");
+    }
+
+    @Test
+    public void mergeWillCoverBothScopes() {
+        SyncScope merged = SyncScope.of("zanata-server", "master", "zh")
+                .merge(SyncScope.of("zanata-server", "release", "ja"))
+                .merge(SyncScope.of("zanata-client", null, "zh"));
+
+        assertThat(merged.includes("zanata-server", "master")).isTrue();
+        assertThat(merged.includes("zanata-server", "release")).isTrue();
+        assertThat(merged.includes("zanata-server", "other")).isFalse();
+        assertThat(merged.includes("zanata-client", "anything")).isTrue();
+        assertThat(merged.getLocales()).containsOnly("zh", "ja");
+        assertThat(merged.getVersions()).isNull();
+    }
+
+    @Test
+    public void mergeWithUnrestrictedScopeIsUnrestricted() {
+        SyncScope merged = SyncScope.of("zanata-server", "master", "zh")
+                .merge(SyncScope.of("zanata-server", "master", null));
+
+        assertThat(merged.getLocales()).isNull();
+        assertThat(merged.getProjects()).containsOnly("zanata-server");
+        assertThat(SyncScope.of("zanata-server", "master", "zh")
+                .merge(SyncScope.EVERYTHING).isEverything()).isTrue();
+    }
+}
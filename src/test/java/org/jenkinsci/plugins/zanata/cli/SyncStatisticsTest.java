@@ -0,0 +1,42 @@
+package org.jenkinsci.plugins.zanata.cli;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+
+public class SyncStatisticsTest {
+
+    @Test
+    public void canSumUpEachPhase() {
+        SyncStatistics statistics = new SyncStatistics();
+        statistics.record(SyncStatistics.Phase.DISCOVERY, 5);
+        statistics.record(new SyncStatistics.Entry(SyncStatistics.Phase.PULL,
+                "about-fedora", "master", "zh", 100, 2, 2048));
+        statistics.record(new SyncStatistics.Entry(SyncStatistics.Phase.PULL,
+                "fedora-web", "master", null, 50, 1, 1024));
+
+        assertThat(statistics.getMillis(SyncStatistics.Phase.PULL))
+                .isEqualTo(150);
+        assertThat(statistics.getDocuments(SyncStatistics.Phase.PULL))
+                .isEqualTo(3);
+        assertThat(statistics.getBytes(SyncStatistics.Phase.PULL))
+                .isEqualTo(3072);
+        assertThat(statistics.getMillis(SyncStatistics.Phase.DISCOVERY))
+                .isEqualTo(5);
+        assertThat(statistics.getMillis(SyncStatistics.Phase.PUSH)).isZero();
+    }
+
+    @Test
+    public void canMergeStatisticsOfAnotherSync() {
+        SyncStatistics statistics = new SyncStatistics();
+        statistics.record(SyncStatistics.Phase.GIT_COMMIT, 10);
+        SyncStatistics other = new SyncStatistics();
+        other.record(SyncStatistics.Phase.GIT_COMMIT, 20);
+
+        statistics.addAll(other);
+
+        assertThat(statistics.getEntries()).hasSize(2);
+        assertThat(statistics.getMillis(SyncStatistics.Phase.GIT_COMMIT))
+                .isEqualTo(30);
+    }
+}
@@ -8,14 +8,24 @@ import java.io.File;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
 
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Marshaller;
 
 import org.jenkinsci.plugins.zanata.SyncJobDetail;
+import org.jenkinsci.plugins.zanata.cli.HasSyncJobDetail;
+import org.jenkinsci.plugins.zanata.cli.SyncScope;
+import org.jenkinsci.plugins.zanata.cli.SyncStatistics;
 import org.jenkinsci.plugins.zanata.cli.service.PullService;
 import org.jenkinsci.plugins.zanata.cli.service.PushService;
+import org.jenkinsci.plugins.zanata.cli.util.DocumentFingerprints;
 import org.jenkinsci.plugins.zanata.exception.ZanataSyncException;
 import org.junit.Before;
 import org.junit.BeforeClass;
@@ -245,4 +255,269 @@ public class ZanataSyncServiceImplTest {
         assertThat(pushOptionsCaptor.getValue().getProj()).isEqualTo("project-one");
     }
 
+    @Test
+    @WithoutJenkins
+    public void canPushProjectConfigsInParallel() throws Exception {
+        File workspace = makeWorkspaceWithProjects("project-one",
+                "project-two", "project-three");
+        SyncJobDetail jobDetail = builder().setConcurrency(2).build();
+
+        service =
+                new ZanataSyncServiceImpl(pullService, pushService, jobDetail);
+
+        service.pushToZanata(workspace.toPath());
+
+        Mockito.verify(pushService, Mockito.times(3))
+                .pushToZanata(pushOptionsCaptor.capture());
+        assertThat(pushOptionsCaptor.getAllValues())
+                .extracting(PushOptions::getProj)
+                .containsOnly("project-one", "project-two", "project-three");
+    }
+
+    @Test
+    @WithoutJenkins
+    public void parallelPullWillReportFailedProjectConfigs() throws Exception {
+        File workspace = makeWorkspaceWithProjects("project-one",
+                "project-two");
+        SyncJobDetail jobDetail = builder().setConcurrency(2).build();
+        Mockito.doThrow(new ZanataSyncException("server error"))
+                .when(pullService).pullFromZanata(
+                        Mockito.argThat(opts -> "project-two"
+                                .equals(opts.getProj())));
+
+        service =
+                new ZanataSyncServiceImpl(pullService, pushService, jobDetail);
+
+        assertThatExceptionOfType(ZanataSyncException.class)
+                .isThrownBy(() -> service.pullFromZanata(workspace.toPath()))
+                .withMessageStartingWith("failed to pull 1 of 2 project configs")
+                .withMessageContaining("project-two");
+        Mockito.verify(pullService, Mockito.times(2))
+                .pullFromZanata(pullOptionsCaptor.capture());
+    }
+
+    @Test
+    @WithoutJenkins
+    public void incrementalPushWillSkipUnchangedProjectConfigs()
+            throws Exception {
+        File workspace = makeWorkspaceWithProjects("project-one",
+                "project-two");
+        Files.write(new File(workspace, "project-one/messages.pot").toPath(),
+                "msgid \"hello\"".getBytes(StandardCharsets.UTF_8));
+        SyncJobDetail jobDetail = builder().setIncrementalPush(true).build();
+        service =
+                new ZanataSyncServiceImpl(pullService, pushService, jobDetail);
+
+        service.pushToZanata(workspace.toPath());
+        // nothing changed
+        service.pushToZanata(workspace.toPath());
+        // not a document of a podir project
+        Files.write(new File(workspace, "project-two/build.log").toPath(),
+                "BUILD SUCCESS".getBytes(StandardCharsets.UTF_8));
+        service.pushToZanata(workspace.toPath());
+        Files.write(new File(workspace, "project-one/messages.pot").toPath(),
+                "msgid \"hi\"".getBytes(StandardCharsets.UTF_8));
+        service.pushToZanata(workspace.toPath());
+
+        Mockito.verify(pushService, Mockito.times(3))
+                .pushToZanata(pushOptionsCaptor.capture());
+        assertThat(pushOptionsCaptor.getAllValues())
+                .extracting(PushOptions::getProj)
+                .containsExactly("project-one", "project-two", "project-one");
+    }
+
+    @Test
+    @WithoutJenkins
+    public void incrementalPushWillPushAgainToAnotherServer() throws Exception {
+        service = new ZanataSyncServiceImpl(pullService, pushService,
+                builder().setIncrementalPush(true).build());
+        service.pushToZanata(workspace.toPath());
+
+        service = new ZanataSyncServiceImpl(pullService, pushService,
+                builder().setIncrementalPush(true)
+                        .setZanataUrl("http://localhost:8080/zanata").build());
+        service.pushToZanata(workspace.toPath());
+        service.pushToZanata(workspace.toPath());
+
+        Mockito.verify(pushService, Mockito.times(2))
+                .pushToZanata(pushOptionsCaptor.capture());
+        assertThat(pushOptionsCaptor.getAllValues())
+                .extracting(PushOptions::getUrl)
+                .containsExactly(new URL("http://zanata.org"),
+                        new URL("http://localhost:8080/zanata"));
+    }
+
+    @Test
+    @WithoutJenkins
+    public void incrementalPushWillNotPushWhatWasPulled() throws Exception {
+        SyncJobDetail jobDetail = builder().setIncrementalPush(true).build();
+        service =
+                new ZanataSyncServiceImpl(pullService, pushService, jobDetail);
+        Mockito.doAnswer(invocation -> {
+            PullOptions opts = invocation.getArgument(0);
+            Files.write(new File(opts.getTransDir(), "messages_zh.properties")
+                    .toPath(), "greeting=nihao".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(pullService).pullFromZanata(Mockito.any(PullOptions.class));
+
+        service.pushToZanata(workspace.toPath());
+        service.pullFromZanata(workspace.toPath());
+        service.pushToZanata(workspace.toPath());
+
+        Mockito.verify(pushService, Mockito.times(1))
+                .pushToZanata(Mockito.any(PushOptions.class));
+        assertThat(new File(workspace, DocumentFingerprints.STATE_FILE))
+                .isFile();
+    }
+
+    @Test
+    @WithoutJenkins
+    public void incrementalPushWillNotCountProjectConfigTwiceOnPull() {
+        service = new ZanataSyncServiceImpl(pullService, pushService,
+                builder().setIncrementalPush(true).build());
+
+        service.pullFromZanata(workspace.toPath());
+
+        assertThat(service.getStatistics().getEntries().stream()
+                .filter(e -> e.getPhase()
+                        == SyncStatistics.Phase.PROJECT_CONFIG)
+                .count()).isEqualTo(1);
+    }
+
+    @Test
+    @WithoutJenkins
+    public void pullWillUseCacheInWorkspacePerProjectConfig() {
+        SyncJobDetail jobDetail = builder()
+                .setPullCache(HasSyncJobDetail.PULL_CACHE_WORKSPACE).build();
+        service =
+                new ZanataSyncServiceImpl(pullService, pushService, jobDetail);
+
+        service.pullFromZanata(workspace.toPath());
+
+        Mockito.verify(pullService).pullFromZanata(pullOptionsCaptor.capture());
+        PullOptions opts = pullOptionsCaptor.getValue();
+        assertThat(opts.getUseCache()).isTrue();
+        assertThat(opts.getCacheDir()).isEqualTo(new File(workspace,
+                ".zanata-cache/pull/zanata.xml_test_master"));
+        assertThat(opts.getCacheDir()).isDirectory();
+    }
+
+    @Test
+    @WithoutJenkins
+    public void pullCacheCanBeOutsideWorkspaceOrDisabled() throws Exception {
+        File nodeCache = temporaryFolder.newFolder();
+        service = new ZanataSyncServiceImpl(pullService, pushService,
+                builder().setPullCache(HasSyncJobDetail.PULL_CACHE_NODE).build());
+
+        service.pullFromZanata(workspace.toPath(), nodeCache.toPath());
+        service.pullFromZanata(workspace.toPath(), null);
+
+        Mockito.verify(pullService, Mockito.times(2))
+                .pullFromZanata(pullOptionsCaptor.capture());
+        assertThat(pullOptionsCaptor.getAllValues().get(0).getCacheDir())
+                .isEqualTo(new File(nodeCache, "zanata.xml_test_master"));
+        assertThat(pullOptionsCaptor.getAllValues().get(1).getUseCache())
+                .isFalse();
+    }
+
+    @Test
+    @WithoutJenkins
+    public void pullCacheIsDroppedIfTranslationsChangedSinceLastPull()
+            throws Exception {
+        File nodeCache = temporaryFolder.newFolder();
+        List<Boolean> hadETags = new ArrayList<>();
+        Mockito.doAnswer(invocation -> {
+            PullOptions opts = invocation.getArgument(0);
+            File eTags = new File(opts.getCacheDir(), "etag-cache.xml");
+            hadETags.add(eTags.isFile());
+            Files.write(eTags.toPath(),
+                    "<cache/>".getBytes(StandardCharsets.UTF_8));
+            Files.write(new File(opts.getTransDir(), "zh.po").toPath(),
+                    "msgstr \"nihao\"".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(pullService).pullFromZanata(Mockito.any(PullOptions.class));
+        service = new ZanataSyncServiceImpl(pullService, pushService,
+                builder().setPullCache(HasSyncJobDetail.PULL_CACHE_NODE).build());
+
+        service.pullFromZanata(workspace.toPath(), nodeCache.toPath());
+        service.pullFromZanata(workspace.toPath(), nodeCache.toPath());
+        // e.g. checkout reset while the cache lives on
+        Files.delete(new File(workspace, "zh.po").toPath());
+        service.pullFromZanata(workspace.toPath(), nodeCache.toPath());
+
+        assertThat(hadETags).containsExactly(false, true, false);
+        assertThat(new File(workspace, "zh.po")).isFile();
+    }
+
+    @Test
+    @WithoutJenkins
+    public void pullWillOnlyHandleProjectAndLocalesInScope() throws Exception {
+        File workspace = makeWorkspaceWithProjects("project-one",
+                "project-two");
+        SyncJobDetail jobDetail = builder().setLocaleId("zh,ja").build();
+        SyncScope scope = SyncScope.of("project-two", "master", "ja")
+                .merge(SyncScope.of("project-two", "master", "pl"))
+                .merge(SyncScope.of("project-two", "master", "fr"));
+        service = new ZanataSyncServiceImpl(pullService, pushService,
+                jobDetail, scope);
+
+        Set<Path> transDirs = service.pullFromZanata(workspace.toPath());
+        service.pushToZanata(workspace.toPath());
+
+        assertThat(transDirs).containsExactly(
+                workspace.toPath().resolve("project-two"));
+        Mockito.verify(pullService).pullFromZanata(pullOptionsCaptor.capture());
+        PullOptions opts = pullOptionsCaptor.getValue();
+        assertThat(opts.getProj()).isEqualTo("project-two");
+        // fr is not in zanata.xml and pl is not in job config
+        assertThat(opts.getLocales()).containsExactly("ja");
+        // push is not restricted
+        Mockito.verify(pushService, Mockito.times(2))
+                .pushToZanata(Mockito.any(PushOptions.class));
+    }
+
+    private File makeWorkspaceWithProjects(String... projects)
+            throws Exception {
+        File workspace = temporaryFolder.newFolder();
+        for (String project : projects) {
+            File folder = new File(workspace, project);
+            assertThat(folder.mkdirs()).isTrue();
+            marshaller.marshal(makeZanataConfig(project),
+                    new File(folder, "zanata.xml"));
+        }
+        return workspace;
+    }
+
+    @Test
+    @WithoutJenkins
+    public void willRecordStatistics() throws Exception {
+        File workspace = makeWorkspaceWithProjects("project-one",
+                "project-two");
+        Files.write(workspace.toPath().resolve("project-one/messages.pot"),
+                "msgid \"hello\"".getBytes(StandardCharsets.UTF_8));
+        // not a document of a podir project
+        Files.write(workspace.toPath().resolve("project-one/build.log"),
+                "BUILD SUCCESS".getBytes(StandardCharsets.UTF_8));
+        service = new ZanataSyncServiceImpl(pullService, pushService,
+                builder().build());
+
+        service.pushToZanata(workspace.toPath());
+        service.pullFromZanata(workspace.toPath());
+
+        SyncStatistics statistics = service.getStatistics();
+        assertThat(statistics.getEntries().stream()
+                .filter(e -> e.getPhase() == SyncStatistics.Phase.PUSH)
+                .map(SyncStatistics.Entry::getProject).toArray())
+                .containsExactly("project-one", "project-two");
+        // only the pot file, not zanata.xml or build.log
+        assertThat(statistics.getDocuments(SyncStatistics.Phase.PUSH))
+                .isEqualTo(1);
+        assertThat(statistics.getEntries().stream()
+                .filter(e -> e.getPhase() == SyncStatistics.Phase.PULL)
+                .count()).isEqualTo(2);
+        assertThat(statistics.getEntries().stream()
+                .filter(e -> e.getPhase() == SyncStatistics.Phase.DISCOVERY)
+                .count()).isEqualTo(2);
+    }
+
 }
@@ -0,0 +1,139 @@
+package org.jenkinsci.plugins.zanata.cli.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.zanata.client.commands.push.PushOptionsImpl;
+
+import com.google.common.collect.ImmutableMap;
+
+public class DocumentFingerprintsTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+    private Path repoBase;
+    private PushOptionsImpl options;
+
+    @Before
+    public void setUp() throws Exception {
+        repoBase = temporaryFolder.newFolder().toPath();
+        Files.createDirectories(repoBase.resolve("src"));
+        Files.createDirectories(repoBase.resolve("trans"));
+        Files.createDirectories(repoBase.resolve(".zanata-cache"));
+        write("src/a.properties", "a=a");
+        write("trans/a_zh.properties", "a=A");
+        write(".zanata-cache/etag-cache.xml", "<cache/>");
+        options = new PushOptionsImpl();
+        options.setSrcDir(repoBase.resolve("src").toFile());
+        options.setTransDir(repoBase.resolve("trans").toFile());
+        options.setProjectType("properties");
+        options.setPushType("both");
+    }
+
+    private void write(String relativePath, String content) throws Exception {
+        Files.write(repoBase.resolve(relativePath),
+                content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void computeWillHashSourceAndTransDocuments() {
+        Map<String, String> fingerprints =
+                DocumentFingerprints.load(repoBase).compute(options);
+
+        assertThat(fingerprints).containsOnlyKeys("src/a.properties",
+                "trans/a_zh.properties");
+    }
+
+    @Test
+    public void computeWillOnlyHashDocumentsPushWouldPickUp() throws Exception {
+        Files.createDirectories(repoBase.resolve("src/target"));
+        write("src/zanata.xml", "<config/>");
+        write("src/build.log", "BUILD SUCCESS");
+        write("src/target/a.properties", "a=a");
+        options.setExcludes("**/target/**");
+        options.setPushType("source");
+
+        Map<String, String> fingerprints =
+                DocumentFingerprints.load(repoBase).compute(options);
+
+        assertThat(fingerprints).containsOnlyKeys("src/a.properties");
+
+        options.setIncludes("**/*.log");
+        assertThat(DocumentFingerprints.load(repoBase).compute(options))
+                .containsOnlyKeys("src/build.log");
+    }
+
+    @Test
+    public void canDetectChangesSinceSavedState() throws Exception {
+        DocumentFingerprints fingerprints = DocumentFingerprints.load(repoBase);
+        String configKey =
+                fingerprints.configKey(repoBase.resolve("zanata.xml").toFile());
+        assertThat(configKey).isEqualTo("zanata.xml");
+        String target = DocumentFingerprints.targetOf(options);
+        fingerprints.record(configKey, target, fingerprints.compute(options));
+        fingerprints.save();
+
+        DocumentFingerprints reloaded = DocumentFingerprints.load(repoBase);
+        assertThat(reloaded.isRecordedFor(configKey, target)).isTrue();
+        assertThat(reloaded.changedSince(configKey, target,
+                reloaded.compute(options))).isEmpty();
+
+        write("src/a.properties", "a=b");
+        write("src/b.properties", "b=b");
+        Files.delete(repoBase.resolve("trans/a_zh.properties"));
+        assertThat(reloaded.changedSince(configKey, target,
+                reloaded.compute(options)))
+                .containsOnly("src/a.properties", "src/b.properties",
+                        "trans/a_zh.properties");
+        assertThat(reloaded.changedSince("other/zanata.xml", target,
+                reloaded.compute(options))).hasSize(2);
+    }
+
+    @Test
+    public void everyDocumentChangesWhenPushedToAnotherVersion() {
+        DocumentFingerprints fingerprints = DocumentFingerprints.load(repoBase);
+        options.setProj("project");
+        options.setProjectVersion("master");
+        fingerprints.record("zanata.xml", DocumentFingerprints.targetOf(options),
+                fingerprints.compute(options));
+
+        options.setProjectVersion("release");
+        String target = DocumentFingerprints.targetOf(options);
+
+        assertThat(fingerprints.isRecordedFor("zanata.xml", target)).isFalse();
+        assertThat(fingerprints.changedSince("zanata.xml", target,
+                fingerprints.compute(options))).containsOnly("src/a.properties",
+                "trans/a_zh.properties");
+        // pull into another version does not count as pushed
+        fingerprints.update("zanata.xml", target,
+                ImmutableMap.of("trans/b_zh.properties", "hash"));
+        assertThat(fingerprints.changedSince("zanata.xml", target,
+                fingerprints.compute(options))).hasSize(2);
+    }
+
+    @Test
+    public void savingWillKeepWhatOthersSavedInTheMeantime() {
+        String target = DocumentFingerprints.targetOf(options);
+        // e.g. parallel branches in one workspace
+        DocumentFingerprints one = DocumentFingerprints.load(repoBase);
+        DocumentFingerprints two = DocumentFingerprints.load(repoBase);
+        one.record("one/zanata.xml", target, one.compute(options));
+        two.record("two/zanata.xml", target, two.compute(options));
+
+        one.save();
+        two.save();
+
+        DocumentFingerprints reloaded = DocumentFingerprints.load(repoBase);
+        assertThat(reloaded.isRecordedFor("one/zanata.xml", target)).isTrue();
+        assertThat(reloaded.isRecordedFor("two/zanata.xml", target)).isTrue();
+        assertThat(reloaded.changedSince("one/zanata.xml", target,
+                reloaded.compute(options))).isEmpty();
+    }
+}
@@ -0,0 +1,80 @@
+package org.jenkinsci.plugins.zanata.cli.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.URL;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.zanata.client.commands.pull.PullOptionsImpl;
+import org.zanata.client.commands.push.PushOptionsImpl;
+import org.zanata.client.config.LocaleList;
+import org.zanata.client.config.LocaleMapping;
+
+public class LocaleListCacheTest {
+    private AtomicInteger fetchCount;
+    private Supplier<LocaleList> fetcher;
+
+    @Before
+    public void setUp() {
+        fetchCount = new AtomicInteger();
+        fetcher = () -> {
+            fetchCount.incrementAndGet();
+            LocaleList locales = new LocaleList();
+            locales.add(new LocaleMapping("zh"));
+            locales.add(new LocaleMapping("ja"));
+            return locales;
+        };
+    }
+
+    private static PushOptionsImpl pushOptions(String project, String version)
+            throws Exception {
+        PushOptionsImpl options = new PushOptionsImpl();
+        options.setUrl(new URL("http://localhost/"));
+        options.setProj(project);
+        options.setProjectVersion(version);
+        return options;
+    }
+
+    @Test
+    public void willOnlyFetchOncePerProjectVersion() throws Exception {
+        LocaleListCache cache = new LocaleListCache(0);
+
+        cache.get(pushOptions("project", "master"), fetcher);
+        PullOptionsImpl pullOptions = new PullOptionsImpl();
+        pullOptions.setUrl(new URL("http://localhost/"));
+        pullOptions.setProj("project");
+        pullOptions.setProjectVersion("master");
+        LocaleList locales = cache.get(pullOptions, fetcher);
+
+        assertThat(fetchCount.get()).isEqualTo(1);
+        assertThat(locales).containsExactly(new LocaleMapping("zh"),
+                new LocaleMapping("ja"));
+
+        cache.get(pushOptions("project", "release"), fetcher);
+        assertThat(fetchCount.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void willReturnCopyOfCachedLocales() throws Exception {
+        LocaleListCache cache = new LocaleListCache(0);
+
+        cache.get(pushOptions("project", "master"), fetcher).clear();
+
+        assertThat(cache.get(pushOptions("project", "master"), fetcher))
+                .hasSize(2);
+    }
+
+    @Test
+    public void willFetchAgainAfterEntryExpires() throws Exception {
+        LocaleListCache cache = new LocaleListCache(1);
+
+        cache.get(pushOptions("project", "master"), fetcher);
+        Thread.sleep(10);
+        cache.get(pushOptions("project", "master"), fetcher);
+
+        assertThat(fetchCount.get()).isEqualTo(2);
+    }
+}
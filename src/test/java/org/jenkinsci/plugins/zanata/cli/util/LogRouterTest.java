@@ -0,0 +1,104 @@
+package org.jenkinsci.plugins.zanata.cli.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import org.junit.Test;
+
+public class LogRouterTest {
+    private static final Logger zanataLog =
+            Logger.getLogger("org.zanata.client.test");
+
+    private static class CountingOutput extends ByteArrayOutputStream {
+        private int flushes;
+
+        @Override
+        public void flush() throws IOException {
+            flushes++;
+            super.flush();
+        }
+    }
+
+    @Test
+    public void willOnlyWriteRecordsOfOwnThread() throws Exception {
+        CountingOutput first = new CountingOutput();
+        CountingOutput second = new CountingOutput();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> one = executor.submit(() -> log(first, "from first"));
+            Future<?> two = executor.submit(() -> log(second, "from second"));
+            one.get(10, TimeUnit.SECONDS);
+            two.get(10, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+        zanataLog.info("from nowhere");
+
+        assertThat(first.toString()).contains("from first")
+                .doesNotContain("from second").doesNotContain("from nowhere");
+        assertThat(second.toString()).contains("from second")
+                .doesNotContain("from first").doesNotContain("from nowhere");
+    }
+
+    private static void log(CountingOutput out, String message) {
+        try (LogRouter.Route ignored = LogRouter.open(out)) {
+            zanataLog.info(message);
+        }
+    }
+
+    @Test
+    public void willBufferRecordsUntilFlushed() {
+        CountingOutput out = new CountingOutput();
+        try (LogRouter.Route route = LogRouter.open(out)) {
+            zanataLog.info("line 1");
+            zanataLog.info("line 2");
+            zanataLog.info("line 3");
+            assertThat(out.flushes).isLessThanOrEqualTo(1);
+
+            route.flush();
+            assertThat(out.toString()).contains("line 1", "line 2", "line 3");
+        }
+        assertThat(LogRouter.current()).isNull();
+    }
+
+    @Test
+    public void willFlushBufferedRecordsWhenLogGoesQuiet() throws Exception {
+        CountingOutput out = new CountingOutput();
+        try (LogRouter.Route ignored = LogRouter.open(out)) {
+            zanataLog.info("last line for a while");
+
+            long deadline = System.currentTimeMillis() + 10000;
+            while (!out.toString().contains("last line for a while")
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            assertThat(out.toString()).contains("last line for a while");
+        }
+    }
+
+    @Test
+    public void willPropagateRouteToWorkerThreads() throws Exception {
+        CountingOutput out = new CountingOutput();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (LogRouter.Route ignored = LogRouter.open(out)) {
+            executor.submit(LogRouter.propagate(() -> {
+                try (LogGroup group = LogGroup.begin("worker")) {
+                    zanataLog.info("from worker");
+                }
+            })).get(10, TimeUnit.SECONDS);
+            executor.submit(() -> zanataLog.info("not propagated"))
+                    .get(10, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(out.toString()).contains("---- worker ----", "from worker")
+                .doesNotContain("not propagated");
+    }
+}
@@ -0,0 +1,103 @@
+package org.jenkinsci.plugins.zanata.cli.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.eclipse.jgit.api.Git;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.common.collect.ImmutableList;
+
+public class ProjectConfigFinderTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+    private Path repoBase;
+    private ProjectConfigFinder finder;
+
+    @Before
+    public void setUp() throws Exception {
+        repoBase = temporaryFolder.newFolder().toPath();
+        finder = ProjectConfigFinder.fromSystemProperties();
+        ProjectConfigFinder.clearCache();
+    }
+
+    @After
+    public void tearDown() {
+        ProjectConfigFinder.clearCache();
+    }
+
+    private File write(String relativePath) throws Exception {
+        Path file = repoBase.resolve(relativePath);
+        Files.createDirectories(file.getParent());
+        Files.write(file, "<config/>".getBytes(StandardCharsets.UTF_8));
+        return file.toFile();
+    }
+
+    private void commitAll(Git git) throws Exception {
+        git.add().addFilepattern(".").call();
+        git.commit().setMessage("commit").setAuthor("a", "a@example.com")
+                .setCommitter("a", "a@example.com").call();
+    }
+
+    @Test
+    public void willNotLookInsideExcludedFolders() throws Exception {
+        File root = write("zanata.xml");
+        File module = write("module/zanata.xml");
+        write("node_modules/dep/zanata.xml");
+        write("module/target/classes/zanata.xml");
+        write(".zanata-cache/pull/zanata.xml");
+
+        assertThat(finder.find(repoBase.toFile())).containsOnly(root, module);
+    }
+
+    @Test
+    public void canUseCustomExcludesAndDepth() throws Exception {
+        File root = write("zanata.xml");
+        write("docs/generated/zanata.xml");
+        File docs = write("docs/zanata.xml");
+        File target = write("target/zanata.xml");
+        write("a/b/c/zanata.xml");
+
+        ProjectConfigFinder custom = new ProjectConfigFinder(
+                ImmutableList.of("docs/generated"), 3);
+
+        assertThat(custom.find(repoBase.toFile()))
+                .containsOnly(root, docs, target);
+    }
+
+    @Test
+    public void willCacheResultForSameGitRevision() throws Exception {
+        File root = write("zanata.xml");
+        try (Git git = Git.init().setDirectory(repoBase.toFile()).call()) {
+            commitAll(git);
+            assertThat(finder.find(repoBase.toFile())).containsOnly(root);
+
+            File module = write("module/zanata.xml");
+            assertThat(finder.find(repoBase.toFile()))
+                    .as("same revision is cached").containsOnly(root);
+
+            commitAll(git);
+            assertThat(finder.find(repoBase.toFile()))
+                    .as("new revision is walked again")
+                    .containsOnly(root, module);
+        }
+    }
+
+    @Test
+    public void willNotCacheIfNotGitRepo() throws Exception {
+        File root = write("zanata.xml");
+        assertThat(finder.find(repoBase.toFile())).containsOnly(root);
+
+        File module = write("module/zanata.xml");
+        assertThat(finder.find(repoBase.toFile())).containsOnly(root, module);
+        assertThat(ProjectConfigFinder.revisionOf(repoBase)).isNull();
+    }
+}
@@ -0,0 +1,87 @@
+package org.jenkinsci.plugins.zanata.cli.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.URL;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.zanata.client.commands.push.PushOptionsImpl;
+import org.zanata.rest.client.RestClientFactory;
+
+public class RestClientFactoryCacheTest {
+    private RestClientFactoryCache cache;
+
+    @Before
+    public void setUp() {
+        cache = new RestClientFactoryCache(
+                (options, engine) -> Mockito.mock(RestClientFactory.class),
+                60000, 2);
+    }
+
+    private static PushOptionsImpl options(String url, String username)
+            throws Exception {
+        PushOptionsImpl options = new PushOptionsImpl();
+        options.setUrl(new URL(url));
+        options.setUsername(username);
+        options.setKey("s3cr3t");
+        return options;
+    }
+
+    @Test
+    public void willReuseFactoryForSameServerAndCredentials() throws Exception {
+        RestClientFactory first;
+        try (RestClientFactoryCache.Lease lease =
+                cache.acquire(options("http://localhost/", "admin"))) {
+            first = lease.getFactory();
+        }
+        try (RestClientFactoryCache.Lease lease =
+                cache.acquire(options("http://localhost/", "admin"))) {
+            assertThat(lease.getFactory()).isSameAs(first);
+        }
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void willNotShareFactoryBetweenDifferentCredentials()
+            throws Exception {
+        try (RestClientFactoryCache.Lease admin =
+                cache.acquire(options("http://localhost/", "admin"));
+                RestClientFactoryCache.Lease translator =
+                        cache.acquire(options("http://localhost/", "translator"))) {
+            assertThat(admin.getFactory()).isNotSameAs(translator.getFactory());
+        }
+        assertThat(cache.size()).isEqualTo(2);
+    }
+
+    @Test
+    public void closeUnusedWillKeepFactoriesInUse() throws Exception {
+        try (RestClientFactoryCache.Lease inUse =
+                cache.acquire(options("http://localhost/", "admin"))) {
+            cache.acquire(options("http://localhost/", "translator")).close();
+
+            cache.closeUnused();
+
+            assertThat(cache.size()).isEqualTo(1);
+        }
+        cache.closeUnused();
+        assertThat(cache.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void idleFactoryWillBeEvicted() throws Exception {
+        cache = new RestClientFactoryCache(
+                (options, engine) -> Mockito.mock(RestClientFactory.class),
+                0, 2);
+        RestClientFactory first;
+        try (RestClientFactoryCache.Lease lease =
+                cache.acquire(options("http://localhost/", "admin"))) {
+            first = lease.getFactory();
+        }
+        try (RestClientFactoryCache.Lease lease =
+                cache.acquire(options("http://localhost/", "admin"))) {
+            assertThat(lease.getFactory()).isNotSameAs(first);
+        }
+    }
+}
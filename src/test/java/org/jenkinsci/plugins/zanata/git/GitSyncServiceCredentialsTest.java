@@ -0,0 +1,96 @@
+package org.jenkinsci.plugins.zanata.git;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Base64;
+import java.util.Collections;
+
+import org.eclipse.jgit.lib.StoredConfig;
+import org.jenkinsci.plugins.gitclient.Git;
+import org.jenkinsci.plugins.zanata.SlowTest;
+import org.jenkinsci.plugins.zanata.SyncJobDetail;
+import org.jenkinsci.plugins.zanata.exception.RepoSyncException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import com.cloudbees.plugins.credentials.CredentialsScope;
+import com.cloudbees.plugins.credentials.impl.UsernamePasswordCredentialsImpl;
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+
+import hudson.EnvVars;
+import hudson.model.TaskListener;
+
+/**
+ * Pushes to an http remote requiring authentication.
+ */
+@Category(SlowTest.class)
+public class GitSyncServiceCredentialsTest {
+    private static final String GIT_REFS = "/repo.git/info/refs";
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+    @Rule
+    public WireMockRule remote =
+            new WireMockRule(wireMockConfig().dynamicPort());
+    @Rule
+    public RemoteGitRepoRule gitRepoRule = new RemoteGitRepoRule();
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void willPushWithGivenCredentials() throws Exception {
+        String basicAuth = "Basic " + Base64.getEncoder().encodeToString(
+                "git-user:git-pass".getBytes(StandardCharsets.UTF_8));
+        remote.stubFor(get(urlPathEqualTo(GIT_REFS)).atPriority(2)
+                .willReturn(aResponse().withStatus(401)
+                        .withHeader("WWW-Authenticate", "Basic realm=\"git\"")));
+        // authenticated. We only care that credentials were sent.
+        remote.stubFor(get(urlPathEqualTo(GIT_REFS)).atPriority(1)
+                .withHeader("Authorization", equalTo(basicAuth))
+                .willReturn(aResponse().withStatus(403)));
+        File workspace = temporaryFolder.newFolder();
+        org.eclipse.jgit.api.Git.cloneRepository()
+                .setURI(gitRepoRule.getRemoteRepoPath().toUri().toString())
+                .setDirectory(workspace).call().close();
+        try (org.eclipse.jgit.api.Git jgit =
+                org.eclipse.jgit.api.Git.open(workspace)) {
+            StoredConfig config = jgit.getRepository().getConfig();
+            config.setString("remote", "origin", "url",
+                    "http://localhost:" + remote.port() + "/repo.git");
+            config.save();
+        }
+        Files.write(workspace.toPath().resolve("zh.po"),
+                Collections.singletonList("msgstr zh"),
+                StandardCharsets.UTF_8);
+        GitSyncService syncService = new GitSyncService(
+                SyncJobDetail.Builder.builder().setZanataUsername("admin")
+                        .build(),
+                Git.with(TaskListener.NULL, new EnvVars()),
+                new UsernamePasswordCredentialsImpl(CredentialsScope.GLOBAL,
+                        "git", "git", "git-user", "git-pass"));
+        assertThat(syncService.syncTranslationToRepo(workspace.toPath()))
+                .isTrue();
+
+        try {
+            syncService.pushTranslationCommit(workspace.toPath(), "master");
+            fail("stub remote can not accept the push");
+        } catch (RepoSyncException expected) {
+            // the stub refuses after authentication
+        }
+
+        remote.verify(getRequestedFor(urlPathEqualTo(GIT_REFS))
+                .withHeader("Authorization", equalTo(basicAuth)));
+    }
+}
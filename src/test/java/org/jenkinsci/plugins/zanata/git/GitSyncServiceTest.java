@@ -6,7 +6,10 @@ import java.io.File;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 
+import org.eclipse.jgit.api.Status;
 import org.jenkinsci.plugins.gitclient.Git;
 import org.jenkinsci.plugins.zanata.SyncJobDetail;
 import org.junit.Before;
@@ -19,6 +22,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 
 import hudson.EnvVars;
@@ -74,4 +78,139 @@ public class GitSyncServiceTest {
         assertThat(committed).isFalse().as("change is not committed");
         // no git exception thrown
     }
+
+    @Test
+    public void willNotCommitZanataCache() {
+        Path gitRepo = gitRepoRule.getRemoteRepoPath();
+        int commitsBefore = gitRepoRule.getCommitMessages().size();
+        gitRepoRule.addFile(".zanata-cache/pull/zanata.xml_about-fedora_master/etag-cache.xml",
+                "<cache/>");
+
+        syncService.syncTranslationToRepo(gitRepo);
+
+        assertThat(gitRepoRule.getCommitMessages()).hasSize(commitsBefore);
+    }
+
+    @Test
+    public void willCommitAllChangedFilesTogether() throws Exception {
+        Path gitRepo = gitRepoRule.getRemoteRepoPath();
+        int commitsBefore = gitRepoRule.getCommitMessages().size();
+        for (int i = 0; i < 20; i++) {
+            gitRepoRule.addFile("po/messages" + i + "_zh.po", "msgstr " + i);
+        }
+        gitRepoRule.addFile(".zanata-cache/pull/etag-cache.xml", "<cache/>");
+
+        syncService.syncTranslationToRepo(gitRepo);
+
+        assertThat(gitRepoRule.getCommitMessages()).hasSize(commitsBefore + 1);
+        try (org.eclipse.jgit.api.Git jgit =
+                org.eclipse.jgit.api.Git.open(gitRepo.toFile())) {
+            Status status = jgit.status().call();
+            assertThat(status.getUncommittedChanges()).isEmpty();
+            assertThat(status.getUntracked())
+                    .containsOnly(".zanata-cache/pull/etag-cache.xml");
+        }
+    }
+
+    @Test
+    public void willOnlyCommitChangesInGivenDirs() throws Exception {
+        Path gitRepo = gitRepoRule.getRemoteRepoPath();
+        int commitsBefore = gitRepoRule.getCommitMessages().size();
+        gitRepoRule.addFile("module/po/zh.po", "msgstr zh");
+        gitRepoRule.addFile("module/target/app.jar", "binary");
+
+        syncService.syncTranslationToRepo(gitRepo,
+                ImmutableList.of(gitRepo.resolve("module/po")));
+
+        assertThat(gitRepoRule.getCommitMessages()).hasSize(commitsBefore + 1);
+        try (org.eclipse.jgit.api.Git jgit =
+                org.eclipse.jgit.api.Git.open(gitRepo.toFile())) {
+            Status status = jgit.status().call();
+            assertThat(status.getUncommittedChanges()).isEmpty();
+            assertThat(status.getUntracked())
+                    .containsOnly("module/target/app.jar");
+        }
+    }
+
+    @Test
+    public void willNotCommitIfNothingWasPulled() {
+        Path gitRepo = gitRepoRule.getRemoteRepoPath();
+        int commitsBefore = gitRepoRule.getCommitMessages().size();
+        gitRepoRule.addFile("module/target/app.jar", "binary");
+
+        syncService.syncTranslationToRepo(gitRepo, ImmutableList.of());
+
+        assertThat(gitRepoRule.getCommitMessages()).hasSize(commitsBefore);
+    }
+
+    private File cloneOf(File repo, boolean bare) throws Exception {
+        File dir = temporaryFolder.newFolder();
+        org.eclipse.jgit.api.Git.cloneRepository().setBare(bare)
+                .setURI(repo.toURI().toString()).setDirectory(dir).call()
+                .close();
+        return dir;
+    }
+
+    private static List<String> commitMessagesOf(File repo) throws Exception {
+        try (org.eclipse.jgit.api.Git jgit =
+                org.eclipse.jgit.api.Git.open(repo)) {
+            List<String> messages = new ArrayList<>();
+            jgit.log().call()
+                    .forEach(commit -> messages.add(commit.getShortMessage()));
+            return messages;
+        }
+    }
+
+    @Test
+    public void canPushTranslationCommit() throws Exception {
+        File remote = cloneOf(gitRepoRule.getRemoteRepoPath().toFile(), true);
+        File workspace = cloneOf(remote, false);
+        Files.write(workspace.toPath().resolve("zh.po"),
+                Lists.newArrayList("msgstr zh"), Charsets.UTF_8);
+
+        assertThat(syncService.syncTranslationToRepo(workspace.toPath()))
+                .isTrue();
+        syncService.pushTranslationCommit(workspace.toPath(), null);
+
+        assertThat(commitMessagesOf(remote))
+                .contains("Zanata Sync job triggered by " + zanataUsername);
+    }
+
+    @Test
+    public void willRebaseAndPushAgainIfRemoteHasMovedOn() throws Exception {
+        File remote = cloneOf(gitRepoRule.getRemoteRepoPath().toFile(), true);
+        File workspace = cloneOf(remote, false);
+        File otherClone = cloneOf(remote, false);
+        Files.write(otherClone.toPath().resolve("other.txt"),
+                Lists.newArrayList("other"), Charsets.UTF_8);
+        try (org.eclipse.jgit.api.Git other =
+                org.eclipse.jgit.api.Git.open(otherClone)) {
+            other.add().addFilepattern("other.txt").call();
+            other.commit().setMessage("other job")
+                    .setCommitter("JUnit", "junit@example.com").call();
+            other.push().call();
+        }
+        Files.write(workspace.toPath().resolve("zh.po"),
+                Lists.newArrayList("msgstr zh"), Charsets.UTF_8);
+
+        syncService.syncTranslationToRepo(workspace.toPath());
+        syncService.pushTranslationCommit(workspace.toPath(), "master");
+
+        assertThat(commitMessagesOf(remote)).startsWith(
+                "Zanata Sync job triggered by " + zanataUsername,
+                "other job");
+    }
+
+    @Test
+    public void backoffGrowsWithAttempts() {
+        assertThat(GitSyncService.backoffMillis(2)).isBetween(1000L, 2000L);
+        assertThat(GitSyncService.backoffMillis(4)).isBetween(4000L, 8000L);
+    }
+
+    @Test
+    public void canTellZanataCachePath() {
+        assertThat(GitSyncService.isZanataCache(".zanata-cache/pull/etag-cache.xml")).isTrue();
+        assertThat(GitSyncService.isZanataCache("module/.zanata-cache/etag-cache.xml")).isTrue();
+        assertThat(GitSyncService.isZanataCache("po/zh.po")).isFalse();
+    }
 }
@@ -45,6 +45,11 @@ public class RemoteGitRepoRule extends TemporaryFolder {
 
     public void addFile(String fileName, String content) {
         File file = new File(remoteRepo, fileName);
+        try {
+            Files.createParentDirs(file);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
         try (BufferedWriter writer =
                 Files.newWriter(file, Charsets.UTF_8)) {
             writer.write(content);
@@ -0,0 +1,57 @@
+package org.jenkinsci.plugins.zanata.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.jenkinsci.plugins.zanata.cli.SyncStatistics;
+import org.junit.Test;
+
+public class ZanataMetricsTest {
+
+    @Test
+    public void willDropMetricsWithoutJenkins() {
+        ZanataMetrics metrics = ZanataMetrics.get();
+        assertThat(metrics).isNotInstanceOf(DropwizardMetrics.class);
+        // no exception
+        metrics.count(ZanataMetrics.WEBHOOK_ACCEPTED);
+    }
+
+    @Test
+    public void canRecordPushAndPullOfSync() {
+        List<String> recorded = new ArrayList<>();
+        ZanataMetrics metrics = new ZanataMetrics() {
+            @Override
+            public void count(String name) {
+                recorded.add(name);
+            }
+
+            @Override
+            public void update(String name, long value) {
+                recorded.add(name + "=" + value);
+            }
+
+            @Override
+            public void time(String name, long duration, TimeUnit unit) {
+                recorded.add(name + "=" + unit.toMillis(duration) + "ms");
+            }
+        };
+        SyncStatistics statistics = new SyncStatistics();
+        statistics.record(SyncStatistics.Phase.DISCOVERY, 5);
+        statistics.record(new SyncStatistics.Entry(SyncStatistics.Phase.PUSH,
+                "about-fedora", "master", null, 100, 3, 300));
+        statistics.record(new SyncStatistics.Entry(SyncStatistics.Phase.PULL,
+                "about-fedora", "master", "zh", 200, 2, 2048));
+
+        metrics.recordSync(statistics);
+
+        assertThat(recorded).containsExactly(
+                ZanataMetrics.PUSH_DURATION + "=100ms",
+                ZanataMetrics.PUSH_DOCUMENTS + "=3",
+                ZanataMetrics.PULL_DURATION + "=200ms",
+                ZanataMetrics.PULL_DOCUMENTS + "=2",
+                ZanataMetrics.PULL_BYTES + "=2048");
+    }
+}
@@ -23,6 +23,12 @@ package org.jenkinsci.plugins.zanata.webhook;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.nio.ByteBuffer;
+
+import javax.crypto.Mac;
+
+import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.codec.binary.StringUtils;
 import org.junit.Test;
 
 /**
@@ -84,4 +90,63 @@ public class HmacUtilTest {
         //make sure the external sha is equal to generated sha
         assertThat(HmacUtil.hmacSha1(key, value)).isEqualTo(expectedSha);
     }
+
+    @Test
+    public void byteOverloadsGiveSameResult() {
+        byte[] key = StringUtils.getBytesUtf8("test_case_key");
+        byte[] value = StringUtils.getBytesUtf8("test case 1: text to convert");
+        String expectedSha = "o+TFYqv4GXbyWF8HvxmYRW705g4=";
+
+        assertThat(Base64.encodeBase64String(HmacUtil.rawHmacSha1(key, value)))
+                .isEqualTo(expectedSha);
+        assertThat(Base64.encodeBase64String(
+                HmacUtil.rawHmacSha1(key, ByteBuffer.wrap(value))))
+                .isEqualTo(expectedSha);
+        assertThat(HmacUtil.hmacSha1(key, value)).isEqualTo(expectedSha);
+    }
+
+    @Test
+    public void changingKeyArrayWillChangeSignature() {
+        byte[] key = StringUtils.getBytesUtf8("secret_key");
+        String sha = HmacUtil.hmacSha1(key, StringUtils.getBytesUtf8("data"));
+
+        key[0] = 'S';
+
+        assertThat(HmacUtil.hmacSha1(key, StringUtils.getBytesUtf8("data")))
+                .isNotEqualTo(sha)
+                .isEqualTo(HmacUtil.hmacSha1("Secret_key", "data"));
+        assertThat(HmacUtil.hmacSha1("secret_key", "data")).isEqualTo(sha);
+    }
+
+    @Test
+    public void macForStreamingIsOwnedByCaller() {
+        byte[] key = StringUtils.getBytesUtf8("test_case_key");
+        Mac mac = HmacUtil.getHmacSha1(key);
+        mac.update(StringUtils.getBytesUtf8("test case 1: "));
+
+        // another signature is made in between
+        String sha2 = HmacUtil.hmacSha1("test_case_key", "something else");
+
+        mac.update(StringUtils.getBytesUtf8("text to convert"));
+        assertThat(Base64.encodeBase64String(mac.doFinal()))
+                .isEqualTo("o+TFYqv4GXbyWF8HvxmYRW705g4=");
+        assertThat(sha2).isEqualTo(HmacUtil.hmacSha1("test_case_key", "something else"));
+    }
+
+    @Test
+    public void canCompareSignatures() {
+        assertThat(HmacUtil.signatureEquals("abc=", "abc=")).isTrue();
+        assertThat(HmacUtil.signatureEquals("abc=", "abd=")).isFalse();
+        assertThat(HmacUtil.signatureEquals("abc=", "abc")).isFalse();
+        assertThat(HmacUtil.signatureEquals("abc=", null)).isFalse();
+        assertThat(HmacUtil.signatureEquals(null, null)).isFalse();
+    }
+
+    @Test
+    public void eachCallGetsItsOwnMac() {
+        byte[] key = StringUtils.getBytesUtf8("test_case_key");
+
+        assertThat(HmacUtil.getHmacSha1(key))
+                .isNotSameAs(HmacUtil.getHmacSha1(key));
+    }
 }
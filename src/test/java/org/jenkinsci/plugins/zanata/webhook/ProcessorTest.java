@@ -6,6 +6,7 @@ import static org.mockito.Mockito.when;
 import java.io.IOException;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import org.jenkinsci.plugins.zanata.zanatareposync.WithJenkins;
 import org.junit.Before;
@@ -16,6 +17,7 @@ import org.mockito.Mockito;
 
 import hudson.Launcher;
 import hudson.model.AbstractBuild;
+import hudson.model.Cause;
 import hudson.model.BuildListener;
 import hudson.model.FreeStyleBuild;
 import hudson.model.FreeStyleProject;
@@ -112,4 +114,67 @@ public class ProcessorTest extends WithJenkins {
         assertThat(lastBuild.getResult()).isEqualTo(Result.SUCCESS);
     }
 
+    @Test
+    @WithoutJenkins
+    public void causeWillDescribeProjectVersionAndLocale() {
+        payload.put("type", "DocumentStatsEvent");
+        payload.put("project", "zanata-server");
+        payload.put("version", "master");
+        payload.put("locale", "zh");
+
+        assertThat(Processor.describe(payload)).isEqualTo(
+                "webhook [DocumentStatsEvent] from project zanata-server version master locale zh");
+        assertThat(Processor.describe(new JSONObject()))
+                .isEqualTo("webhook [unknown] from project unknown");
+    }
+
+    @Test
+    public void willMergeWebhooksWithinDebounceWindowIntoOneBuild()
+            throws Exception {
+        FreeStyleProject project = j.createFreeStyleProject(jobName);
+        Processor processor = new Processor(j.jenkins, project, 3);
+
+        for (String locale : new String[] { "zh", "ja", "de" }) {
+            JSONObject webhook = new JSONObject();
+            webhook.put("type", "DocumentMilestoneEvent");
+            webhook.put("project", "zanata-server");
+            webhook.put("version", "master");
+            webhook.put("locale", locale);
+            processor.triggerJobs(jobName, remoteHost, webhook);
+        }
+
+        j.waitUntilNoActivityUpTo(1000 * 20);
+        assertThat(project.getBuilds()).hasSize(1);
+        List<Cause> causes = project.getLastBuild().getCauses();
+        assertThat(causes).hasSize(3);
+        String descriptions = causes.stream().map(Cause::getShortDescription)
+                .collect(Collectors.joining("\n"));
+        assertThat(descriptions).contains("locale zh", "locale ja", "locale de");
+        ZanataWebhookScopeAction scopeAction = project.getLastBuild()
+                .getAction(ZanataWebhookScopeAction.class);
+        assertThat(scopeAction.getScope().getProjects())
+                .containsOnly("zanata-server");
+        assertThat(scopeAction.getScope().getLocales())
+                .containsOnly("zh", "ja", "de");
+    }
+
+    @Test
+    public void unrestrictedRequestWillLiftScopeOfQueuedWebhookBuild()
+            throws Exception {
+        FreeStyleProject project = j.createFreeStyleProject(jobName);
+        Processor processor = new Processor(j.jenkins, project, 3);
+        payload.put("type", "DocumentMilestoneEvent");
+        payload.put("project", "zanata-server");
+        payload.put("version", "master");
+        payload.put("locale", "zh");
+
+        processor.triggerJobs(jobName, remoteHost, payload);
+        project.scheduleBuild2(3, new Cause.UserIdCause());
+
+        j.waitUntilNoActivityUpTo(1000 * 20);
+        assertThat(project.getBuilds()).hasSize(1);
+        ZanataWebhookScopeAction scopeAction = project.getLastBuild()
+                .getAction(ZanataWebhookScopeAction.class);
+        assertThat(scopeAction.getScope().isEverything()).isTrue();
+    }
 }
@@ -0,0 +1,64 @@
+package org.jenkinsci.plugins.zanata.webhook;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class WebhookIntakeQueueTest {
+    private WebhookIntakeQueue queue;
+    private CountDownLatch release;
+
+    @Before
+    public void setUp() {
+        queue = new WebhookIntakeQueue(2, 1);
+        release = new CountDownLatch(1);
+    }
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        queue.shutdown();
+    }
+
+    private Runnable blockingTask(CountDownLatch started) {
+        return () -> {
+            started.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+    }
+
+    @Test
+    public void willRejectWhenQueueIsFull() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        assertThat(queue.offer(blockingTask(started))).isTrue();
+        started.await(10, TimeUnit.SECONDS);
+
+        // the only worker is busy so these two wait in the queue
+        assertThat(queue.offer(() -> {})).isTrue();
+        assertThat(queue.offer(() -> {})).isTrue();
+        assertThat(queue.getQueueDepth()).isEqualTo(2);
+        assertThat(queue.getActiveCount()).isEqualTo(1);
+
+        assertThat(queue.offer(() -> {})).isFalse();
+    }
+
+    @Test
+    public void willKeepWorkingAfterTaskFailure() throws Exception {
+        CountDownLatch done = new CountDownLatch(1);
+        queue.offer(() -> {
+            throw new IllegalStateException("boom");
+        });
+        queue.offer(done::countDown);
+
+        assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+    }
+}
@@ -0,0 +1,63 @@
+package org.jenkinsci.plugins.zanata.webhook;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+public class WebhookPayloadTest {
+    private static final String BODY =
+            "{\"project\":\"zanata-server\", \"type\":\"milestone\"}";
+    private static final String URI = "/jenkins/zanata-webhook/";
+
+    private static WebhookPayload read(String body, String secret)
+            throws IOException {
+        return WebhookPayload.read(new ByteArrayInputStream(
+                        body.getBytes(StandardCharsets.UTF_8)), 1024, secret,
+                URI);
+    }
+
+    @Test
+    public void signatureIsComputedOverRawBytes() throws IOException {
+        String secret = "s3cr3t";
+        String expected = HmacUtil.hmacSha1(secret,
+                HmacUtil.hmacSha1(secret, BODY + URI));
+
+        WebhookPayload payload = read(BODY, secret);
+
+        assertThat(payload.signatureMatches(expected)).isTrue();
+        assertThat(payload.signatureMatches("wrong")).isFalse();
+        assertThat(payload.signatureMatches(null)).isFalse();
+        assertThat(payload.getJson().getString("project"))
+                .isEqualTo("zanata-server");
+    }
+
+    @Test
+    public void anySignatureMatchesIfThereIsNoSecret() throws IOException {
+        WebhookPayload payload = read(BODY, "");
+
+        assertThat(payload.signatureMatches(null)).isTrue();
+        assertThat(payload.isEmpty()).isFalse();
+        assertThat(read("", null).isEmpty()).isTrue();
+    }
+
+    @Test
+    public void willRejectPayloadLargerThanLimit() {
+        byte[] body = new byte[1025];
+        assertThatThrownBy(() -> WebhookPayload
+                .read(new ByteArrayInputStream(body), 1024, null, URI))
+                .isInstanceOf(WebhookPayload.TooLargeException.class);
+    }
+
+    @Test
+    public void jsonIsOnlyParsedWhenAskedFor() throws IOException {
+        // not JSON at all but reading does not fail
+        WebhookPayload payload = read("not json", null);
+
+        assertThatThrownBy(payload::getJson).isInstanceOf(RuntimeException.class);
+    }
+}
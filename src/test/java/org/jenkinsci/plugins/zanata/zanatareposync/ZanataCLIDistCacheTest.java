@@ -0,0 +1,153 @@
+package org.jenkinsci.plugins.zanata.zanatareposync;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.matching;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import hudson.Util;
+import hudson.model.TaskListener;
+
+public class ZanataCLIDistCacheTest {
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+    @Rule
+    public WireMockRule server =
+            new WireMockRule(wireMockConfig().dynamicPort());
+    private File remote;
+    private URL zipUrl;
+    private String sha1;
+    private ZanataCLIDistCache cache;
+
+    @Before
+    public void setUp() throws Exception {
+        remote = temp.newFolder("remote");
+        File zip = new File(remote, "zanata-cli-4.0.0-dist.zip");
+        byte[] content = "zip content".getBytes(StandardCharsets.UTF_8);
+        Files.write(zip.toPath(), content);
+        MessageDigest digest = ZanataCLIDistCache.sha1Digest();
+        sha1 = Util.toHexString(digest.digest(content));
+        Files.write(new File(remote, zip.getName() + ".sha1").toPath(),
+                (sha1 + "  " + zip.getName()).getBytes(StandardCharsets.UTF_8));
+        zipUrl = zip.toURI().toURL();
+        cache = new ZanataCLIDistCache(temp.newFolder("cache"));
+    }
+
+    @Test
+    public void willDownloadAndVerifyPublishedChecksum() throws Exception {
+        ZanataCLIDistCache.Dist dist =
+                cache.get("4.0.0", zipUrl, null, TaskListener.NULL);
+
+        assertThat(dist.getSha1()).isEqualTo(sha1);
+        assertThat(dist.getZip()).hasContent("zip content");
+    }
+
+    @Test
+    public void willReuseCachedDist() throws Exception {
+        cache.get("4.0.0", zipUrl, null, TaskListener.NULL);
+        // the remote is gone but the cached copy is still there
+        Util.deleteRecursive(remote);
+
+        ZanataCLIDistCache.Dist dist =
+                cache.get("4.0.0", zipUrl, sha1, TaskListener.NULL);
+
+        assertThat(dist.getZip()).hasContent("zip content");
+    }
+
+    @Test
+    public void willRejectChecksumMismatch() throws Exception {
+        try {
+            cache.get("4.0.0", zipUrl,
+                    "0000000000000000000000000000000000000000",
+                    TaskListener.NULL);
+            fail("should fail on checksum mismatch");
+        } catch (IOException e) {
+            assertThat(e.getMessage()).contains("checksum");
+        }
+    }
+
+    @Test
+    public void canUseUploadedDistWithoutDownloading() throws Exception {
+        ZanataCLIDistCache.Dist uploaded = cache.put("4.0.0",
+                new ByteArrayInputStream(
+                        "zip content".getBytes(StandardCharsets.UTF_8)));
+        assertThat(uploaded.getSha1()).isEqualTo(sha1);
+
+        ZanataCLIDistCache.Dist dist = cache.get("4.0.0",
+                new URL("http://unreachable.invalid/zanata-cli-4.0.0-dist.zip"),
+                null, TaskListener.NULL);
+
+        assertThat(dist.getZip()).hasContent("zip content");
+    }
+
+    @Test
+    public void willStartOverIfPartialDownloadCanNotBeResumed()
+            throws Exception {
+        File zip = cache.put("4.0.0", new ByteArrayInputStream(new byte[0]))
+                .getZip();
+        Files.delete(zip.toPath());
+        Files.write(new File(zip.getParentFile(), zip.getName() + ".part")
+                .toPath(), "zip co".getBytes(StandardCharsets.UTF_8));
+
+        ZanataCLIDistCache.Dist dist =
+                cache.get("4.0.0", zipUrl, null, TaskListener.NULL);
+
+        assertThat(dist.getSha1()).isEqualTo(sha1);
+        assertThat(dist.getZip()).hasContent("zip content");
+    }
+
+    @Test
+    public void willStartOverIfServerRefusesRangeOfCompletePart()
+            throws Exception {
+        String path = "/zanata-cli-4.0.0-dist.zip";
+        server.stubFor(get(urlPathEqualTo(path)).atPriority(2)
+                .willReturn(aResponse().withStatus(200)
+                        .withBody("zip content")));
+        server.stubFor(get(urlPathEqualTo(path)).atPriority(1)
+                .withHeader("Range", matching("bytes=.*"))
+                .willReturn(aResponse().withStatus(416)));
+        File zip = cache.put("4.0.0", new ByteArrayInputStream(new byte[0]))
+                .getZip();
+        Files.delete(zip.toPath());
+        File part = new File(zip.getParentFile(), zip.getName() + ".part");
+        Files.write(part.toPath(),
+                "zip content".getBytes(StandardCharsets.UTF_8));
+
+        URL url = new URL("http://localhost:" + server.port() + path);
+
+        ZanataCLIDistCache.Dist dist =
+                cache.get("4.0.0", url, sha1, TaskListener.NULL);
+
+        assertThat(dist.getZip()).hasContent("zip content");
+        assertThat(part).doesNotExist();
+        server.verify(2, getRequestedFor(urlPathEqualTo(path)));
+    }
+
+    @Test
+    public void willRejectInvalidVersion() throws Exception {
+        try {
+            cache.put("../../etc", new ByteArrayInputStream(new byte[0]));
+            fail("should reject version with path in it");
+        } catch (IOException e) {
+            assertThat(e.getMessage()).contains("invalid Zanata CLI version");
+        }
+    }
+}
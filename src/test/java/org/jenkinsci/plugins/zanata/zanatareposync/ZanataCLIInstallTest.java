@@ -1,9 +1,14 @@
 package org.jenkinsci.plugins.zanata.zanatareposync;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 
 import org.jenkinsci.plugins.zanata.SlowTest;
@@ -80,6 +85,74 @@ public class ZanataCLIInstallTest extends WithJenkins {
 
     }
 
+    @Test
+    public void willInstallFromControllerCacheAndReuseIt() throws Exception {
+        String version = "0.0.1-test";
+        // seed the controller cache so that nothing is downloaded
+        ZanataCLIDistCache.onController().put(version,
+                new ByteArrayInputStream(distZip(version)));
+        ZanataCLIInstaller installer = new ZanataCLIInstaller(null, null);
+        ZanataCLIInstall cli = new ZanataCLIInstall("", version,
+                Lists.newArrayList());
+
+        FilePath home = installer.performInstallation(cli, j.jenkins,
+                TaskListener.NULL);
+        assertThat(home.child("bin/zanata-cli").exists()).isTrue();
+
+        FilePath extra = home.child("extra");
+        extra.write("kept", "UTF-8");
+        assertThat(installer.performInstallation(cli, j.jenkins,
+                TaskListener.NULL)).isEqualTo(home);
+        assertThat(extra.exists()).isTrue();
+    }
+
+    @Test
+    public void willCarryOnFromInterruptedCopyToNode() throws Exception {
+        String version = "0.0.2-test";
+        byte[] zip = distZip(version);
+        ZanataCLIDistCache.onController().put(version,
+                new ByteArrayInputStream(zip));
+        ZanataCLIInstaller installer = new ZanataCLIInstaller(null, null);
+        ZanataCLIInstall cli = new ZanataCLIInstall("", version,
+                Lists.newArrayList());
+        FilePath dir = installer.performInstallation(cli, j.jenkins,
+                TaskListener.NULL).getParent();
+        // as if the copy was cut off half way through
+        dir.deleteContents();
+        FilePath partial = dir.sibling(dir.getName() + "-"
+                + ZanataCLIDistCache.distFileName(version));
+        try (OutputStream out = partial.write()) {
+            out.write(zip, 0, zip.length / 2);
+        }
+
+        FilePath home = installer.performInstallation(cli, j.jenkins,
+                TaskListener.NULL);
+
+        assertThat(home.child("bin/zanata-cli").exists()).isTrue();
+        assertThat(partial.exists()).isFalse();
+    }
+
+    @Test
+    @WithoutJenkins
+    public void canDownloadFromMirror() {
+        assertThat(ZanataCLIInstaller.toDownloadURL(null, "4.0.0"))
+                .isEqualTo("https://repo1.maven.org/maven2/org/zanata/zanata-cli/4.0.0/zanata-cli-4.0.0-dist.zip");
+        assertThat(ZanataCLIInstaller.toDownloadURL(
+                "https://nexus.example.com/repo/", "4.0.0"))
+                .isEqualTo("https://nexus.example.com/repo/org/zanata/zanata-cli/4.0.0/zanata-cli-4.0.0-dist.zip");
+    }
+
+    private static byte[] distZip(String version) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream out = new ZipOutputStream(bytes)) {
+            out.putNextEntry(new ZipEntry(
+                    "zanata-cli-" + version + "/bin/zanata-cli"));
+            out.write("#!/bin/sh".getBytes(Charsets.UTF_8));
+            out.closeEntry();
+        }
+        return bytes.toByteArray();
+    }
+
     @Test
     public void testUI() throws IOException, SAXException {
         HtmlForm form = goToGlobalConfigForm();
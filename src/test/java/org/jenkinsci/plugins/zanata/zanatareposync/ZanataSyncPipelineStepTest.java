@@ -0,0 +1,53 @@
+package org.jenkinsci.plugins.zanata.zanatareposync;
+
+import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
+import org.jenkinsci.plugins.zanata.SlowTest;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
+
+import hudson.model.Result;
+
+@Category(SlowTest.class)
+public class ZanataSyncPipelineStepTest extends WithJenkins {
+
+    @Test
+    public void canRunInParallelBranches() throws Exception {
+        addUsernamePasswordCredential("user", "s3cr3t", "zanata_cred",
+                "zanata credentials");
+        WorkflowJob job = j.jenkins.createProject(WorkflowJob.class, "sync");
+        job.setDefinition(new CpsFlowDefinition(Joiner.on("\n").join(
+                ImmutableList.of(
+                        "node {",
+                        "  parallel a: {",
+                        "    zanataSync zanataCredentialsId: 'zanata_cred', zanataProjectConfigs: 'a/zanata.xml', pushToZanata: false, pullFromZanata: false",
+                        "  }, b: {",
+                        "    zanataSync zanataCredentialsId: 'zanata_cred', zanataProjectConfigs: 'b/zanata.xml', pushToZanata: false, pullFromZanata: false",
+                        "  }",
+                        "}"))));
+
+        WorkflowRun run = j.assertBuildStatusSuccess(job.scheduleBuild2(0));
+
+        j.assertLogContains("zanataProjectConfigs=a/zanata.xml", run);
+        j.assertLogContains("zanataProjectConfigs=b/zanata.xml", run);
+        j.assertLogContains("Both push and pull are disabled", run);
+        j.assertLogNotContains("s3cr3t", run);
+    }
+
+    @Test
+    public void willFailIfCredentialIdNotFound() throws Exception {
+        WorkflowJob job = j.jenkins.createProject(WorkflowJob.class, "sync");
+        job.setDefinition(new CpsFlowDefinition(
+                "node { zanataSync zanataCredentialsId: 'NotExistCredentialId' }"));
+
+        WorkflowRun run = j.assertBuildStatus(Result.FAILURE,
+                job.scheduleBuild2(0).get());
+
+        j.assertLogContains(
+                "credential with ID [NotExistCredentialId] can not be found.",
+                run);
+    }
+}
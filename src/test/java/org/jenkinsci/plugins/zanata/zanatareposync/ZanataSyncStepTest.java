@@ -98,6 +98,12 @@ public class ZanataSyncStepTest extends WithJenkins {
         before.setZanataLocaleIds("zh");
         before.setZanataProjectConfigs("zanata.xml");
         before.setZanataURL("http://localhost:8080/zanata");
+        before.setConcurrency(4);
+        before.setIncrementalPush(true);
+        before.setPullCache(ZanataSyncStep.PULL_CACHE_NODE);
+        before.setPushCommit(true);
+        before.setPushCommitBranch("l10n");
+        before.setPushCommitCredentialsId(credentialId);
 
         p.getBuildersList().add(before);
 
@@ -107,7 +113,7 @@ public class ZanataSyncStepTest extends WithJenkins {
         ZanataSyncStep after = p.getBuildersList().get(ZanataSyncStep.class);
 
         j.assertEqualBeans(before, after,
-                "pullFromZanata,pushToZanata,syncOption,zanataLocaleIds,zanataProjectConfigs,zanataURL,zanataCredentialsId");
+                "pullFromZanata,pushToZanata,syncOption,zanataLocaleIds,zanataProjectConfigs,zanataURL,zanataCredentialsId,concurrency,incrementalPush,pullCache,pushCommit,pushCommitBranch,pushCommitCredentialsId");
     }
 
     @Test
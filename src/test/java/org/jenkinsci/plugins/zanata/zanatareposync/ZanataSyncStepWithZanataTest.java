@@ -7,6 +7,9 @@ import static org.jenkinsci.plugins.zanata.zanatareposync.TestUtils.readFileAsSt
 
 import java.io.IOException;
 
+import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
 import org.jenkinsci.plugins.zanata.SlowTest;
 import org.junit.Before;
 import org.junit.Rule;
@@ -15,6 +18,8 @@ import org.junit.experimental.categories.Category;
 import org.jvnet.hudson.test.TestBuilder;
 
 import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
 
 import hudson.Launcher;
 import hudson.model.AbstractBuild;
@@ -89,6 +94,28 @@ public class ZanataSyncStepWithZanataTest extends WithJenkins {
 
     }
 
+    @Test(timeout = FIVE_MINUTES)
+    public void pipelineStepCanPushToAndPullFromZanata() throws Exception {
+        setupPushToZanataStub(username, password);
+        setupPullFromZanataStub(username, password);
+        WorkflowJob job = j.jenkins.createProject(WorkflowJob.class, "sync");
+        job.setDefinition(new CpsFlowDefinition(Joiner.on("\n").join(
+                ImmutableList.of(
+                        "node {",
+                        "  writeFile file: 'zanata.xml', text: '''" + zanataXMLContent + "'''",
+                        "  writeFile file: 'messages.properties', text: 'greeting=Hello, World'",
+                        "  zanataSync zanataCredentialsId: '" + credentialId + "', syncOption: 'source'",
+                        "}"))));
+
+        WorkflowRun run = j.assertBuildStatusSuccess(job.scheduleBuild2(0));
+
+        wireMockRule.verify(putRequestedFor(urlPathEqualTo(
+                "/rest/async/projects/p/test-project/iterations/i/master/r/messages")));
+        wireMockRule.verify(getRequestedFor(urlPathEqualTo(
+                "/rest/projects/p/test-project/iterations/i/master/r/messages/translations/zh-Hans")));
+        j.assertLogNotContains(password, run);
+    }
+
     /**
      * REST calls to the stubbed Zanata server for pushing source.
      *
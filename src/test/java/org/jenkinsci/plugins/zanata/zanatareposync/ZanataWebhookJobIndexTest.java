@@ -0,0 +1,57 @@
+package org.jenkinsci.plugins.zanata.zanatareposync;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.jenkinsci.plugins.zanata.SlowTest;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.jvnet.hudson.test.MockFolder;
+
+import hudson.model.FreeStyleProject;
+import hudson.util.Secret;
+
+@Category(SlowTest.class)
+public class ZanataWebhookJobIndexTest extends WithJenkins {
+
+    private static ZanataWebhookProjectProperty webhookProperty() {
+        return new ZanataWebhookProjectProperty(Secret.fromString(""),
+                "http://jenkins/zanata-webhook/");
+    }
+
+    @Test
+    public void canFindJobAcceptingWebhookByNameOrFullName() throws Exception {
+        MockFolder folder = j.createFolder("team");
+        FreeStyleProject project =
+                folder.createProject(FreeStyleProject.class, "l10n");
+        j.createFreeStyleProject("noWebhook");
+        ZanataWebhookJobIndex index = ZanataWebhookJobIndex.get();
+        assertThat(index.find("l10n")).isEmpty();
+
+        project.addProperty(webhookProperty());
+
+        assertThat(index.find("l10n")).containsSame(project);
+        assertThat(index.find("team/l10n")).containsSame(project);
+        assertThat(index.find("noWebhook")).isEmpty();
+    }
+
+    @Test
+    public void indexFollowsRenameAndDelete() throws Exception {
+        MockFolder folder = j.createFolder("team");
+        FreeStyleProject project =
+                folder.createProject(FreeStyleProject.class, "l10n");
+        project.addProperty(webhookProperty());
+        ZanataWebhookJobIndex index = ZanataWebhookJobIndex.get();
+
+        folder.renameTo("squad");
+        assertThat(index.find("team/l10n")).isEmpty();
+        assertThat(index.find("squad/l10n")).containsSame(project);
+
+        project.removeProperty(ZanataWebhookProjectProperty.class);
+        assertThat(index.find("l10n")).isEmpty();
+
+        project.addProperty(webhookProperty());
+        project.delete();
+        assertThat(index.find("squad/l10n")).isEmpty();
+        assertThat(index.find("l10n")).isEmpty();
+    }
+}
@@ -11,6 +11,9 @@ import static org.hamcrest.Matchers.equalToIgnoringCase;
 import java.io.IOException;
 
 import org.jenkinsci.plugins.zanata.SlowTest;
+import org.jenkinsci.plugins.zanata.metrics.DropwizardMetrics;
+import org.jenkinsci.plugins.zanata.metrics.ZanataMetrics;
+import org.jenkinsci.plugins.zanata.webhook.WebhookPayload;
 import org.junit.Before;
 import org.junit.ClassRule;
 import org.junit.Test;
@@ -18,6 +21,7 @@ import org.junit.experimental.categories.Category;
 import org.jvnet.hudson.test.JenkinsRule;
 import org.jvnet.hudson.test.TestBuilder;
 
+import com.codahale.metrics.MetricRegistry;
 import com.google.common.base.Charsets;
 import com.google.common.net.HttpHeaders;
 
@@ -32,13 +36,15 @@ import hudson.util.Secret;
 import io.restassured.builder.RequestSpecBuilder;
 import io.restassured.http.Header;
 import io.restassured.specification.RequestSpecification;
+import jenkins.metrics.api.Metrics;
 
 @Category(SlowTest.class)
 public class ZanataWebhookJobTriggerTest {
     private static final Header JSON_CONTENT_TYPE =
             new Header(HttpHeaders.CONTENT_TYPE, APPLICATION_JSON);
+    // signature is computed over the payload as sent
     private static final String PAYLOAD =
-            "{\"type\":\"milestone\", \"project\":\"zanata-server\"}";
+            "{\"type\":\"milestone\",\"project\":\"zanata-server\"}";
 
     @ClassRule
     public static JenkinsRule jenkins = new JenkinsRule();
@@ -91,6 +97,21 @@ public class ZanataWebhookJobTriggerTest {
                 .body("message", equalTo("Only Accept JSON payload."));
     }
 
+    @Test
+    public void willGetPayloadTooLargeIfPayloadExceedsLimit() {
+        StringBuilder payload = new StringBuilder("{\"type\":\"");
+        while (payload.length() <= WebhookPayload.MAX_BYTES) {
+            payload.append("milestone");
+        }
+        payload.append("\"}");
+        given().spec(spec)
+                .param("job", "some")
+                .header(JSON_CONTENT_TYPE).body(payload.toString())
+                .when().get()
+                .then()
+                .statusCode(413);
+    }
+
     @Test
     public void willGetNotFoundIfJobNameCanNotBeFound() {
         given().spec(spec)
@@ -130,8 +151,8 @@ public class ZanataWebhookJobTriggerTest {
                 .header(JSON_CONTENT_TYPE).body(PAYLOAD)
                 .when().get()
                 .then()
-                .statusCode(200)
-                .body("message", equalToIgnoringCase("job '" + jobName + "' is triggered"));
+                .statusCode(202)
+                .body("message", equalToIgnoringCase("job '" + jobName + "' will be triggered"));
 
         int timeout = 20 * 1000;
         buildStarted.block(timeout);
@@ -172,8 +193,8 @@ public class ZanataWebhookJobTriggerTest {
                 .header(JSON_CONTENT_TYPE).body(PAYLOAD)
                 .when().get()
                 .then()
-                .statusCode(200)
-                .body("message", equalToIgnoringCase("job '" + jobName + "' is triggered"));
+                .statusCode(202)
+                .body("message", equalToIgnoringCase("job '" + jobName + "' will be triggered"));
 
         int timeout = 20 * 1000;
         buildStarted.block(timeout);
@@ -214,4 +235,36 @@ public class ZanataWebhookJobTriggerTest {
         assertThat(builds).isEmpty();
     }
 
+    @Test
+    public void canGetIntakeQueueStatus() {
+        given().spec(spec)
+                .when().get("status")
+                .then()
+                .statusCode(200)
+                .body("queueDepth", equalTo(0))
+                .body("queueCapacity", equalTo(100));
+    }
+
+    @Test
+    public void willReportWebhookMetrics() {
+        MetricRegistry registry = Metrics.metricRegistry();
+        long rejectedBefore =
+                registry.counter(ZanataMetrics.WEBHOOK_REJECTED).getCount();
+        long notFoundBefore = registry.counter(
+                ZanataMetrics.WEBHOOK_STATUS + "404").getCount();
+
+        given().spec(spec)
+                .header(JSON_CONTENT_TYPE).body(PAYLOAD)
+                .when().get()
+                .then()
+                .statusCode(404);
+
+        assertThat(ZanataMetrics.get()).isInstanceOf(DropwizardMetrics.class);
+        assertThat(registry.counter(ZanataMetrics.WEBHOOK_REJECTED).getCount())
+                .isEqualTo(rejectedBefore + 1);
+        assertThat(registry.counter(ZanataMetrics.WEBHOOK_STATUS + "404")
+                .getCount()).isEqualTo(notFoundBefore + 1);
+        assertThat(registry.timer(ZanataMetrics.WEBHOOK_LATENCY).getCount())
+                .isPositive();
+    }
 }
@@ -25,8 +25,10 @@ public class ZanataWebhookProjectPropertyTest extends WithJenkins {
         // enable zanata webhook for the project
         String url = "http://jenkins/zanata-webhook/?job=" + project.getName();
         String zanataWebhookSecret = "s3cr3t";
-        project.addProperty(
-                new ZanataWebhookProjectProperty(Secret.fromString(zanataWebhookSecret), url));
+        ZanataWebhookProjectProperty property =
+                new ZanataWebhookProjectProperty(Secret.fromString(zanataWebhookSecret), url);
+        property.setDebounceSeconds(30);
+        project.addProperty(property);
         j.configRoundtrip(project);
         ZanataWebhookProjectProperty prop =
                 project.getProperty(ZanataWebhookProjectProperty.class);
@@ -34,6 +36,7 @@ public class ZanataWebhookProjectPropertyTest extends WithJenkins {
         assertThat(zanataWebhookSecret)
                 .isEqualTo(prop.getZanataWebhookSecret().getPlainText());
         assertThat(url).isEqualTo(prop.getURLForWebhook());
+        assertThat(prop.getDebounceSeconds()).isEqualTo(30);
         prop = DescribableHelper.instantiate(ZanataWebhookProjectProperty.class,
                 DescribableHelper.uninstantiate(prop));
         assertThat(url).isEqualTo(prop.getURLForWebhook());